@@ -0,0 +1,10 @@
+#! /usr/bin/env bash
+
+# Runs the JMH microbenchmarks (src/jmh/java) and writes bench/jmh.json for bench/plot.ipynb.
+# Any arguments are passed to JMH, e.g. a benchmark regex: bench/jmh.sh EntropyBench
+
+set -o nounset -o errexit -o pipefail
+
+JMH_ARGS="--plot-json bench/jmh.json $*"
+
+mvn --quiet -Pjmh compile exec:exec -Djmh.args="${JMH_ARGS}"
@@ -0,0 +1,52 @@
+package dev.hotz.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Fixed inputs for the benchmarks, so that numbers are comparable across runs.
+ */
+final class Answers {
+
+    static final long SEED = 42;
+
+    private Answers() {
+        // hidden
+    }
+
+    /**
+     * @return {@code n} answers from {@code answers.txt}, sampled with the fixed {@link #SEED}
+     */
+    static Word[] sample(final int n) {
+        try (final var in = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(Wordle.class.getClassLoader().getResourceAsStream("answers.txt"))))) {
+            final List<Word> answers = new ArrayList<>(in.lines().filter(l -> !l.startsWith("#")).map(Word::new).toList());
+            Collections.shuffle(answers, new Random(SEED));
+            return answers.subList(0, Math.min(n, answers.size())).toArray(Word[]::new);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return {@code n} random dictionary words (with the fixed {@link #SEED})
+     */
+    static Word[] words(final int n) {
+        final var random = new Random(SEED);
+        final var words = new Word[n];
+        for (int i = 0; i < n; i++) {
+            words[i] = Wordle.DICTIONARY.toWord(random.nextInt(Wordle.DICTIONARY.size()));
+        }
+        return words;
+    }
+}
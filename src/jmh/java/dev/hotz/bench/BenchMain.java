@@ -0,0 +1,82 @@
+package dev.hotz.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+/**
+ * Runs the JMH benchmarks and additionally exports the results in the hyperfine JSON shape of {@code bench.json},
+ * so they can be plotted with {@code bench/plot.ipynb}: one result per benchmark and parameter combination,
+ * with the per-iteration scores in seconds as {@code times}.
+ * <p>
+ * Usage: {@code BenchMain [--plot-json <file>] [JMH options]}
+ */
+public final class BenchMain {
+
+    private BenchMain() {
+        // hidden
+    }
+
+    public static void main(final String... args) throws RunnerException, CommandLineOptionException, IOException {
+        Path plot = null;
+        var jmhArgs = args;
+        if (args.length >= 2 && args[0].equals("--plot-json")) {
+            plot = Path.of(args[1]);
+            jmhArgs = Arrays.copyOfRange(args, 2, args.length);
+        }
+        final var results = new Runner(new CommandLineOptions(jmhArgs)).run();
+        if (plot != null) {
+            Files.writeString(plot, toJson(results));
+        }
+    }
+
+    private static String toJson(final Collection<RunResult> results) {
+        final List<String> entries = new ArrayList<>();
+        for (final var r : results) {
+            final var params = r.getParams();
+            final var benchmark = params.getBenchmark();
+            // e.g. EntropyBench.guess with remaining=1024 -> EntropyBench.guess-1024
+            final var command = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1)
+                    + params.getParamsKeys().stream().map(k -> "-" + params.getParam(k)).collect(Collectors.joining());
+            final double unit = toSeconds(r.getPrimaryResult().getScoreUnit());
+            final var times = r.getBenchmarkResults().stream()
+                    .flatMap(b -> b.getIterationResults().stream())
+                    .mapToDouble(i -> i.getPrimaryResult().getScore() * unit)
+                    .toArray();
+            final var stats = r.getPrimaryResult().getStatistics();
+            entries.add(String.format(Locale.US,
+                    "    {\"command\": \"%s\", \"mean\": %s, \"stddev\": %s, \"median\": %s, \"min\": %s, \"max\": %s, \"times\": [%s]}",
+                    command, number(stats.getMean() * unit), number(stats.getStandardDeviation() * unit),
+                    number(stats.getPercentile(50) * unit), number(stats.getMin() * unit), number(stats.getMax() * unit),
+                    Arrays.stream(times).mapToObj(BenchMain::number).collect(Collectors.joining(", "))));
+        }
+        return "{\n  \"results\": [\n" + String.join(",\n", entries) + "\n  ]\n}\n";
+    }
+
+    private static String number(final double d) {
+        // e.g. the stddev of a single iteration
+        return Double.isFinite(d) ? Double.toString(d) : "null";
+    }
+
+    private static double toSeconds(final String unit) {
+        return switch (unit.substring(0, unit.indexOf('/'))) {
+            case "ns" -> 1e-9;
+            case "us" -> 1e-6;
+            case "ms" -> 1e-3;
+            case "s" -> 1;
+            default -> throw new IllegalArgumentException("Unsupported score unit: " + unit);
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package dev.hotz.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.hotz.Guesser.Guess;
+import dev.hotz.Wordle.Correctness;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Pattern computation and matching for a fixed batch of random (guess, answer) pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorrectnessBench {
+
+    private static final int PAIRS = 1024;
+
+    private Word[] guesses;
+    private Word[] answers;
+    private Correctness[][] masks;
+    private Guess[] guessed;
+
+    @Setup
+    public void setup() {
+        final var words = Answers.words(2 * PAIRS);
+        this.guesses = new Word[PAIRS];
+        this.answers = new Word[PAIRS];
+        this.masks = new Correctness[PAIRS][];
+        this.guessed = new Guess[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            this.guesses[i] = words[2 * i];
+            this.answers[i] = words[2 * i + 1];
+            this.masks[i] = Correctness.compute(this.answers[i], this.guesses[i]);
+            // every other guess matches its answer
+            this.guessed[i] = new Guess(this.guesses[i], i % 2 == 0 ? this.masks[i] : Correctness.maskOf("CCCCC"));
+        }
+    }
+
+    @Benchmark
+    public void compute(final Blackhole bh) {
+        for (int i = 0; i < PAIRS; i++) {
+            bh.consume(Correctness.compute(this.answers[i], this.guesses[i]));
+        }
+    }
+
+    @Benchmark
+    public void pattern(final Blackhole bh) {
+        for (int i = 0; i < PAIRS; i++) {
+            bh.consume(Correctness.pattern(this.answers[i].packed(), this.guesses[i].packed()));
+        }
+    }
+
+    @Benchmark
+    public void idx(final Blackhole bh) {
+        for (int i = 0; i < PAIRS; i++) {
+            bh.consume(Correctness.idx(this.masks[i]));
+        }
+    }
+
+    @Benchmark
+    public void matches(final Blackhole bh) {
+        for (int i = 0; i < PAIRS; i++) {
+            bh.consume(this.guessed[i].matches(this.answers[i]));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.hotz.bench;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.hotz.Guesser.Guess;
+import dev.hotz.Patterns;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Correctness;
+import dev.hotz.Wordle.Word;
+import dev.hotz.alg.Entropy;
+
+/**
+ * A single (second) {@link Entropy#guess(Deque)} after the opener, for different sizes of the remaining set.
+ * The feedback to the opener is the pattern whose remaining set is closest to {@link #remaining} words.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntropyBench {
+
+    private static final Word OPENER = new Word("tares");
+
+    @Param({"16", "64", "256", "1024", "4096"})
+    public int remaining;
+
+    private Deque<Guess> history;
+
+    @Setup
+    public void setup() {
+        final int opener = Wordle.DICTIONARY.id(OPENER);
+        final var sizes = new int[Correctness.ALL_PATTERNS.length];
+        for (int a = 0; a < Wordle.DICTIONARY.size(); a++) {
+            sizes[Patterns.get(opener, a)] += 1;
+        }
+        int best = 0;
+        for (int p = 1; p < sizes.length; p++) {
+            if (Math.abs(sizes[p] - this.remaining) < Math.abs(sizes[best] - this.remaining)) {
+                best = p;
+            }
+        }
+        this.history = new ArrayDeque<>();
+        this.history.add(new Guess(OPENER, best));
+    }
+
+    @Benchmark
+    public Optional<Word> guess() {
+        return new Entropy().guess(this.history);
+    }
+}
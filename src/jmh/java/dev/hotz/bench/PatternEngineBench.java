@@ -0,0 +1,77 @@
+package dev.hotz.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.hotz.Bits;
+import dev.hotz.Columns;
+import dev.hotz.PatternEngine;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Correctness;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Patterns of one guess against a random set of {@link #answers} dictionary words, per {@link PatternEngine}.
+ * Engine {@code compute} is the baseline of {@link Correctness#compute(Word, Word)} on {@link Word}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternEngineBench {
+
+    private static final Word GUESS = new Word("tares");
+
+    @Param({"256", "4096"})
+    public int answers;
+
+    @Param({"compute", "scalar", "vector", "matrix"})
+    public String engine;
+
+    private PatternEngine patternEngine;
+    private Columns columns;
+    private byte[] out;
+
+    @Setup
+    public void setup() {
+        this.patternEngine = switch (this.engine) {
+            case "compute" -> (guess, answers, out) -> {
+                final var g = Wordle.DICTIONARY.toWord(guess);
+                for (int k = 0; k < answers.size(); k++) {
+                    out[k] = (byte) Correctness.idx(Correctness.compute(Wordle.DICTIONARY.toWord(answers.id(k)), g));
+                }
+            };
+            case "matrix" -> PatternEngine.matrix();
+            case "scalar" -> PatternEngine.scalar();
+            case "vector" -> PatternEngine.vector().orElseThrow(() -> new IllegalStateException("Vector API not available"));
+            default -> throw new IllegalArgumentException("Unknown engine: " + this.engine);
+        };
+        final var random = new Random(Answers.SEED);
+        final var bits = new long[Bits.words(Wordle.DICTIONARY.size())];
+        while (Bits.cardinality(bits) < this.answers) {
+            Bits.set(bits, random.nextInt(Wordle.DICTIONARY.size()));
+        }
+        this.columns = Columns.of(bits);
+        this.out = new byte[this.columns.size()];
+    }
+
+    @Benchmark
+    public byte[] patterns() {
+        this.patternEngine.patterns(Wordle.DICTIONARY.id(GUESS), this.columns, this.out);
+        return this.out;
+    }
+}
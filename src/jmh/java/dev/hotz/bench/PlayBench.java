@@ -0,0 +1,74 @@
+package dev.hotz.bench;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.hotz.Guesser;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Word;
+import dev.hotz.alg.Entropy;
+import dev.hotz.alg.MostFreq;
+
+/**
+ * Full games via {@link Wordle#play(Word, Guesser)} for a fixed sample of answers, and the per-game setup alone
+ * (guesser, first guess, {@link Guesser#finish(long)}); run with {@code -prof gc} for the garbage per game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayBench {
+
+    @Param({"entropy", "mostfreq"})
+    public String algorithm;
+
+    @Param({"16"})
+    public int games;
+
+    private Word[] answers;
+
+    private final Wordle wordle = new Wordle();
+
+    @Setup
+    public void setup() {
+        this.answers = Answers.sample(this.games);
+    }
+
+    @Benchmark
+    public void play(final Blackhole bh) {
+        for (final var answer : this.answers) {
+            bh.consume(this.wordle.play(answer, guesser()));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void setupGame(final Blackhole bh) {
+        final var guesser = guesser();
+        bh.consume(guesser.guess(new ArrayDeque<>()));
+        guesser.finish(1);
+    }
+
+    private Guesser guesser() {
+        return switch (this.algorithm) {
+            case "entropy" -> new Entropy();
+            case "mostfreq" -> new MostFreq();
+            default -> throw new IllegalArgumentException("Unknown guesser: " + this.algorithm);
+        };
+    }
+}
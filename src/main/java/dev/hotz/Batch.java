@@ -0,0 +1,195 @@
+package dev.hotz;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import dev.hotz.Wordle.Word;
+
+/**
+ * Plays a stream of answers of any length with flat memory: a reader feeds a bounded queue that {@code jobs}
+ * workers take answers from, and each game is recorded in {@link Results} and written as one line of NDJSON
+ * as soon as it is finished (so in completion order, with its position in the input):
+ * {@code {"index":0,"answer":"cigar","solved":true,"guesses":3,"ms":[0.002,1.234,0.456]}}, where {@code ms} holds
+ * the time of each guess.
+ * Lines that are empty or start with {@code #} are skipped, malformed ones are reported and skipped.
+ */
+final class Batch {
+
+    // answers queued per worker
+    private static final int QUEUE_PER_JOB = 4;
+    private static final long POLL_MS = 100;
+
+    private final Supplier<Guesser> guessers;
+    private final Wordle wordle;
+    private final int jobs;
+    private final Results results;
+    private final Writer ndjson;
+
+    /**
+     * @param guessers creates a guesser per game
+     * @param ndjson receives the result of each game
+     */
+    Batch(final Supplier<Guesser> guessers, final int jobs, final Results results, final Writer ndjson) {
+        this(guessers, new Wordle(), jobs, results, ndjson);
+    }
+
+    /**
+     * @param guessers creates a guesser per game
+     * @param wordle plays the games
+     * @param ndjson receives the result of each game
+     */
+    Batch(final Supplier<Guesser> guessers, final Wordle wordle, final int jobs, final Results results, final Writer ndjson) {
+        this.guessers = Objects.requireNonNull(guessers);
+        this.wordle = Objects.requireNonNull(wordle);
+        this.jobs = jobs;
+        this.results = Objects.requireNonNull(results);
+        this.ndjson = Objects.requireNonNull(ndjson);
+    }
+
+    /**
+     * Play the answers of {@code in}, at most {@code max}.
+     */
+    void run(final BufferedReader in, final int max) throws IOException {
+        final BlockingQueue<Game> queue = new ArrayBlockingQueue<>(this.jobs * QUEUE_PER_JOB);
+        final var workers = Executors.newFixedThreadPool(this.jobs);
+        try {
+            final var done = new ArrayDeque<Future<?>>();
+            for (int j = 0; j < this.jobs; j++) {
+                done.add(workers.submit(() -> work(queue)));
+            }
+            int index = 0;
+            for (var line = in.readLine(); line != null && index < max; line = in.readLine()) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                final Word answer;
+                try {
+                    answer = new Word(line.strip());
+                } catch (IllegalArgumentException e) {
+                    System.err.printf("Skipping answer '%s': %s%n", line, e.getMessage().strip());
+                    continue;
+                }
+                if (!Wordle.DICTIONARY.contains(answer)) {
+                    System.err.printf("Skipping answer '%s': not in the dictionary%n", line);
+                    continue;
+                }
+                put(queue, new Game(index++, answer), done);
+            }
+            for (int j = 0; j < this.jobs; j++) {
+                put(queue, Game.END, done);
+            }
+            for (final var worker : done) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while playing games!", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new RuntimeException("Could not play games!", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        this.ndjson.flush();
+    }
+
+    /**
+     * Queue {@code game}, unless a worker failed (which is thrown) and would leave the queue full.
+     */
+    private static void put(final BlockingQueue<Game> queue, final Game game, final Iterable<Future<?>> workers)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(game, POLL_MS, TimeUnit.MILLISECONDS)) {
+            for (final var worker : workers) {
+                if (worker.isDone()) {
+                    worker.get();
+                }
+            }
+        }
+    }
+
+    private Void work(final BlockingQueue<Game> queue) throws InterruptedException {
+        for (var game = queue.take(); game != Game.END; game = queue.take()) {
+            final var timed = new Timed(this.guessers.get(), this.wordle.maxGuesses());
+            final var result = this.wordle.play(game.answer, timed);
+            this.results.record(result);
+            write(game, result, timed.times, timed.guesses);
+        }
+        return null;
+    }
+
+    private void write(final Game game, final OptionalInt result, final long[] times, final int guesses) {
+        final var line = new StringBuilder(96)
+                .append("{\"index\":").append(game.index)
+                .append(",\"answer\":\"").append(game.answer)
+                .append("\",\"solved\":").append(result.isPresent())
+                .append(",\"guesses\":").append(guesses)
+                .append(",\"ms\":[");
+        for (int g = 0; g < guesses; g++) {
+            line.append(g == 0 ? "" : ",").append(String.format(Locale.US, "%.3f", times[g] / 1e6));
+        }
+        line.append("]}\n");
+        try {
+            synchronized (this.ndjson) {
+                this.ndjson.write(line.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records the time of each guess of a game; the other calls go to the guesser unchanged.
+     */
+    private static final class Timed implements Guesser {
+
+        private final Guesser delegate;
+        private final long[] times;
+        private int guesses;
+
+        private Timed(final Guesser delegate, final int maxGuesses) {
+            this.delegate = delegate;
+            this.times = new long[maxGuesses];
+        }
+
+        @Override
+        public Optional<Word> guess(final Deque<Guess> history) {
+            final long start = System.nanoTime();
+            final var guess = this.delegate.guess(history);
+            this.times[this.guesses++] = System.nanoTime() - start;
+            return guess;
+        }
+
+        @Override
+        public void finish(final long guesses) {
+            this.delegate.finish(guesses);
+        }
+
+        @Override
+        public Optional<Guesser> fork() {
+            return this.delegate.fork();
+        }
+    }
+
+    private record Game(int index, Word answer) {
+
+        // tells a worker to stop
+        private static final Game END = new Game(-1, null);
+    }
+}
@@ -0,0 +1,91 @@
+package dev.hotz;
+
+import java.util.ArrayDeque;
+
+/**
+ * Helpers for sets of dictionary ids stored as a {@code long[]} bitset (bit {@code i % 64} of word {@code i / 64}).
+ */
+public final class Bits {
+
+    private Bits() {
+        // hidden
+    }
+
+    /**
+     * @return number of longs needed for a bitset of {@code n} bits
+     */
+    public static int words(final int n) {
+        return (n + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * @return bitset with bits {@code 0..n-1} set
+     */
+    public static long[] all(final int n) {
+        final var bits = new long[words(n)];
+        for (int i = 0; i < n / Long.SIZE; i++) {
+            bits[i] = -1L;
+        }
+        if (n % Long.SIZE != 0) {
+            bits[n / Long.SIZE] = (1L << n) - 1;
+        }
+        return bits;
+    }
+
+    /**
+     * @return bitset of all dictionary ids, recycled from {@link #release(long[])} on this thread if possible
+     */
+    public static long[] dictionary() {
+        final var bits = Pool.POOL.get().pollLast();
+        return bits != null ? bits : Pool.ALL.clone();
+    }
+
+    /**
+     * Recycle {@code bits} for {@link #dictionary()}: per-game state of guessers, which must not be used afterwards.
+     */
+    public static void release(final long[] bits) {
+        final var pool = Pool.POOL.get();
+        if (pool.size() < Pool.SIZE && bits.length == Pool.ALL.length) {
+            System.arraycopy(Pool.ALL, 0, bits, 0, bits.length);
+            pool.addLast(bits);
+        }
+    }
+
+    public static void set(final long[] bits, final int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    public static void clear(final long[] bits, final int i) {
+        bits[i >>> 6] &= ~(1L << i);
+    }
+
+    public static boolean get(final long[] bits, final int i) {
+        return (bits[i >>> 6] & 1L << i) != 0;
+    }
+
+    public static int cardinality(final long[] bits) {
+        int n = 0;
+        for (final long w : bits) {
+            n += Long.bitCount(w);
+        }
+        return n;
+    }
+
+    /**
+     * Intersect {@code bits} with {@code other} in place.
+     */
+    public static void and(final long[] bits, final long[] other) {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] &= other[i];
+        }
+    }
+
+    // initialized on first use, as the dictionary is loaded after this class
+    private static final class Pool {
+
+        // games in flight per thread are usually one, more only if guessers are not released
+        private static final int SIZE = 4;
+        private static final long[] ALL = all(Wordle.DICTIONARY.size());
+        private static final ThreadLocal<ArrayDeque<long[]>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+    }
+}
@@ -0,0 +1,77 @@
+package dev.hotz;
+
+import dev.hotz.Wordle.Word;
+
+/**
+ * Column layout of a set of dictionary words: one array per letter position, so that the letters of many words
+ * at the same position are adjacent in memory and can be compared at once (see {@link PatternEngine}).
+ * Letters are stored as in {@link Word#letterAt(int, int)}.
+ */
+public final class Columns {
+
+    private final int[] ids;
+    private final long[] counts;
+    private final long total;
+    // [position][k]
+    private final byte[][] letters;
+
+    private Columns(final int[] ids) {
+        this.ids = ids;
+        this.counts = new long[ids.length];
+        this.letters = new byte[Wordle.LENGTH][ids.length];
+        long total = 0;
+        for (int k = 0; k < ids.length; k++) {
+            final int word = Wordle.DICTIONARY.word(ids[k]);
+            this.counts[k] = Wordle.DICTIONARY.count(ids[k]);
+            total += this.counts[k];
+            for (int i = 0; i < Wordle.LENGTH; i++) {
+                this.letters[i][k] = (byte) Word.letterAt(word, i);
+            }
+        }
+        this.total = total;
+    }
+
+    /**
+     * @param bits bitset of dictionary ids (see {@link Bits})
+     * @return the words of {@code bits} in id order
+     */
+    public static Columns of(final long[] bits) {
+        final var ids = new int[Bits.cardinality(bits)];
+        int k = 0;
+        for (int w = 0; w < bits.length; w++) {
+            for (long b = bits[w]; b != 0; b &= b - 1) {
+                ids[k++] = w * Long.SIZE + Long.numberOfTrailingZeros(b);
+            }
+        }
+        return new Columns(ids);
+    }
+
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * @return dictionary id of the {@code k}-th word
+     */
+    public int id(final int k) {
+        return this.ids[k];
+    }
+
+    public long count(final int k) {
+        return this.counts[k];
+    }
+
+    /**
+     * @return sum of the counts of all words
+     */
+    public long total() {
+        return this.total;
+    }
+
+    /**
+     * @return letters of all words at {@code position}, not to be modified
+     */
+    byte[] letters(final int position) {
+        return this.letters[position];
+    }
+}
@@ -0,0 +1,152 @@
+package dev.hotz;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import dev.hotz.Wordle.Word;
+
+/**
+ * Dictionary and answer list compiled at build time from {@code dictionary.txt} and {@code answers.txt} into the
+ * binary resource {@code wordle.bin}, which is loaded at run time without any parsing.
+ * <p>
+ * The build runs {@link #main(String...)} in the {@code process-classes} phase, which fails on malformed lines.
+ * Layout (big endian): magic, version, number of words {@code n}, {@code n} packed words (sorted, i.e. in id order),
+ * {@code n} counts, number of answers {@code m}, {@code m} answer ids (in file order).
+ */
+public record CompiledDictionary(Dictionary dictionary, int[] answers) {
+
+    public static final String RESOURCE = "wordle.bin";
+
+    // "JDIC"
+    private static final int MAGIC = 0x4a444943;
+    private static final int VERSION = 1;
+
+    /**
+     * Load the compiled resource.
+     * @return compiled dictionary and answers, or empty if the resource is missing (e.g. when not built with Maven)
+     */
+    public static Optional<CompiledDictionary> load() {
+        try (final InputStream in = CompiledDictionary.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                return Optional.empty();
+            }
+            final var buf = ByteBuffer.wrap(in.readAllBytes());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                throw new IllegalStateException("Invalid or outdated " + RESOURCE + ", rebuild the project!");
+            }
+            final var words = new int[buf.getInt()];
+            buf.asIntBuffer().get(words);
+            buf.position(buf.position() + words.length * Integer.BYTES);
+            final var counts = new long[words.length];
+            buf.asLongBuffer().get(counts);
+            buf.position(buf.position() + counts.length * Long.BYTES);
+            final var answers = new int[buf.getInt()];
+            buf.asIntBuffer().get(answers);
+            return Optional.of(new CompiledDictionary(new Dictionary(words, counts), answers));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + RESOURCE, e);
+        }
+    }
+
+    /**
+     * Compile the word lists.
+     * @param args directory containing {@code dictionary.txt} and {@code answers.txt}, output directory
+     */
+    public static void main(final String... args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: CompiledDictionary <resource dir> <output dir>");
+        }
+        final var in = Path.of(args[0]);
+        final var out = Path.of(args[1]);
+
+        final var dictLines = lines(in.resolve("dictionary.txt"));
+        final var words = new int[dictLines.size()];
+        final var counts = new long[dictLines.size()];
+        // line number by word
+        final var seen = new HashMap<Integer, Integer>();
+        for (int i = 0; i < words.length; i++) {
+            final var line = dictLines.get(i);
+            final var parts = line.text.split(" ");
+            if (parts.length != 2) {
+                throw line.malformed("expected '<word> <count>'");
+            }
+            words[i] = pack(line, parts[0]);
+            final var first = seen.putIfAbsent(words[i], line.number);
+            if (first != null) {
+                throw line.malformed("duplicate of line " + first);
+            }
+            try {
+                counts[i] = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                throw line.malformed("invalid count");
+            }
+            if (counts[i] < 0) {
+                throw line.malformed("negative count");
+            }
+        }
+        final var dictionary = new Dictionary(words, counts);
+
+        final var answerLines = lines(in.resolve("answers.txt"));
+        final var answers = new int[answerLines.size()];
+        for (int i = 0; i < answers.length; i++) {
+            final var line = answerLines.get(i);
+            answers[i] = dictionary.id(pack(line, line.text));
+            if (answers[i] < 0) {
+                throw line.malformed("answer is not in the dictionary");
+            }
+        }
+
+        Files.createDirectories(out);
+        try (final var data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out.resolve(RESOURCE))))) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(dictionary.size());
+            for (int id = 0; id < dictionary.size(); id++) {
+                data.writeInt(dictionary.word(id));
+            }
+            for (int id = 0; id < dictionary.size(); id++) {
+                data.writeLong(dictionary.count(id));
+            }
+            data.writeInt(answers.length);
+            for (final int a : answers) {
+                data.writeInt(a);
+            }
+        }
+    }
+
+    private static int pack(final Line line, final String word) {
+        try {
+            return Word.pack(word);
+        } catch (IllegalArgumentException e) {
+            throw line.malformed("invalid word");
+        }
+    }
+
+    private static List<Line> lines(final Path file) throws IOException {
+        final var all = Files.readAllLines(file);
+        final var lines = new ArrayList<Line>(all.size());
+        for (int i = 0; i < all.size(); i++) {
+            if (!all.get(i).startsWith("#")) {
+                lines.add(new Line(file, i + 1, all.get(i)));
+            }
+        }
+        return lines;
+    }
+
+    private record Line(Path file, int number, String text) {
+
+        private IllegalArgumentException malformed(final String reason) {
+            return new IllegalArgumentException(String.format("%s:%d: %s: '%s'", file, number, reason, text));
+        }
+    }
+}
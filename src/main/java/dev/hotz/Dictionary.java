@@ -0,0 +1,180 @@
+package dev.hotz;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import dev.hotz.Wordle.Word;
+
+/**
+ * Primitive dictionary of packed words (see {@link Word#packed()}) and their frequency counts.
+ * Words are identified by a dense id, which is their position in lexicographic order.
+ * Lookup from packed word to id uses an open-addressing hash table, so neither words nor counts are boxed.
+ * A dictionary is immutable and shared by all guessers, so everything they derive from it per game (the order by
+ * count, the total count) is computed once here.
+ */
+public final class Dictionary {
+
+    private final int[] words;
+    private final long[] counts;
+    // open addressing with linear probing, slot holds id + 1 (0 marks an empty slot)
+    private final int[] table;
+    private final int shift;
+    private final long fingerprint;
+    // ids by descending count, equal counts by id
+    private final int[] byCount;
+    private final long total;
+
+    /**
+     * Create a dictionary. The arrays are sorted (in parallel) by word, so ids do not depend on input order; words
+     * that are sorted already (as those of {@link CompiledDictionary}) are only copied.
+     * @param words packed words
+     * @param counts frequency count for each word
+     */
+    public Dictionary(final int[] words, final long[] counts) {
+        if (Objects.requireNonNull(words).length != Objects.requireNonNull(counts).length) {
+            throw new IllegalArgumentException("Words and counts must have the same length");
+        }
+        final int n = words.length;
+        if (isSorted(words)) {
+            this.words = words.clone();
+            this.counts = counts.clone();
+        } else {
+            final var order = new long[n];
+            for (int i = 0; i < n; i++) {
+                // packed words are non-negative, so sorting on the upper half sorts by word
+                order[i] = (long) words[i] << 32 | i;
+            }
+            Arrays.sort(order);
+            this.words = new int[n];
+            this.counts = new long[n];
+            for (int i = 0; i < n; i++) {
+                this.words[i] = (int) (order[i] >>> 32);
+                this.counts[i] = counts[(int) order[i]];
+                if (i > 0 && this.words[i] == this.words[i - 1]) {
+                    throw new IllegalArgumentException("Duplicate word in dictionary: " + new Word(this.words[i]));
+                }
+            }
+        }
+
+        final int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(n * 2 - 1));
+        this.table = new int[1 << bits];
+        this.shift = 32 - bits;
+        for (int id = 0; id < n; id++) {
+            int slot = slot(this.words[id]);
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & (this.table.length - 1);
+            }
+            this.table[slot] = id + 1;
+        }
+
+        final var crc = new CRC32();
+        final var buf = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+        for (int id = 0; id < n; id++) {
+            crc.update(buf.clear().putInt(this.words[id]).putLong(this.counts[id]).flip());
+        }
+        this.fingerprint = crc.getValue();
+
+        // counts replaced by their rank among all counts, so that rank and id fit into one long
+        final var sorted = this.counts.clone();
+        Arrays.sort(sorted);
+        final int idBits = 32 - Integer.numberOfLeadingZeros(n);
+        final var order = new long[n];
+        for (int id = 0; id < n; id++) {
+            // descending count, ascending id
+            order[id] = (long) (n - 1 - Arrays.binarySearch(sorted, this.counts[id])) << idBits | id;
+        }
+        Arrays.sort(order);
+        this.byCount = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            this.byCount[rank] = (int) (order[rank] & (1L << idBits) - 1);
+        }
+        this.total = Arrays.stream(this.counts).sum();
+    }
+
+    /**
+     * @return whether {@code words} are strictly ascending, i.e. sorted and without duplicates
+     */
+    private static boolean isSorted(final int[] words) {
+        for (int i = 1; i < words.length; i++) {
+            if (words[i] <= words[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slot(final int packed) {
+        // fibonacci hashing
+        return (packed * 0x9E3779B9) >>> this.shift;
+    }
+
+    /**
+     * Look up the id of a packed word.
+     * @param packed packed word
+     * @return id of the word, or {@code -1} if it is not in the dictionary
+     */
+    public int id(final int packed) {
+        int slot = slot(packed);
+        int entry;
+        while ((entry = this.table[slot]) != 0) {
+            if (this.words[entry - 1] == packed) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & (this.table.length - 1);
+        }
+        return -1;
+    }
+
+    public int id(final Word word) {
+        return id(word.packed());
+    }
+
+    public boolean contains(final Word word) {
+        return id(word) >= 0;
+    }
+
+    /**
+     * @return checksum over all words and counts, for caches derived from this dictionary
+     */
+    public long fingerprint() {
+        return this.fingerprint;
+    }
+
+    public int size() {
+        return this.words.length;
+    }
+
+    /**
+     * @return packed word with id {@code id}
+     */
+    public int word(final int id) {
+        return this.words[id];
+    }
+
+    public long count(final int id) {
+        return this.counts[id];
+    }
+
+    /**
+     * @return id of the word with the {@code rank}-th highest count (from 0), equal counts by id
+     */
+    public int byCount(final int rank) {
+        return this.byCount[rank];
+    }
+
+    /**
+     * @return sum of the counts of all words
+     */
+    public long total() {
+        return this.total;
+    }
+
+    /**
+     * Build the {@link Word} for an id, intended for the API edge only.
+     */
+    public Word toWord(final int id) {
+        return new Word(this.words[id]);
+    }
+}
@@ -1,6 +1,5 @@
 package dev.hotz;
 
-import java.util.Arrays;
 import java.util.Deque;
 import java.util.Optional;
 
@@ -16,34 +15,114 @@ public interface Guesser {
 
     /**
      * Make a guess.
+     * The history usually grows by one guess per call, but it may also contain several guesses the guesser has not
+     * been asked about (e.g. answered from an {@link OpeningBook}), which implementations must take into account.
      * @param history similarity to answer of previous guess words
      * @return next guess
      */
     Optional<Word> guess(Deque<Guess> history);
 
+    /**
+     * Called when the game is solved, after which the guesser is not used anymore.
+     * @param guesses number of guesses of the game
+     */
     default void finish(long guesses) {
         // empty default impl
     }
 
     /**
-     * A guess (word) and an accompanying correctness mask wrt. the answer.
+     * Copy this guesser in its current state, so that games sharing a history prefix can continue
+     * independently from here (see {@link Wordle#playAll(Word[], Guesser)}).
+     * @return independent copy of this guesser, or empty if the guesser does not support copying
      */
-    record Guess(Word word, Correctness[] mask) {
+    default Optional<Guesser> fork() {
+        return Optional.empty();
+    }
+
+    /**
+     * A guess (word) and an accompanying correctness pattern wrt. the answer.
+     * @param pattern pattern index as in {@link Correctness#idx(Correctness[])}
+     */
+    record Guess(Word word, int pattern) {
+
+        public Guess(final Word word, final Correctness[] mask) {
+            this(word, Correctness.idx(mask));
+        }
+
+        /**
+         * Remove the words that do not match the guesses in {@code history} after the first {@code seen} from
+         * {@code remaining}.
+         * @return number of guesses seen from now on
+         */
+        public static int filter(final Deque<Guess> history, final int seen, final long[] remaining) {
+            int i = 0;
+            for (final var guess : history) {
+                if (i++ >= seen) {
+                    guess.filter(remaining);
+                }
+            }
+            return history.size();
+        }
+
+        /**
+         * @return the correctness pattern as mask
+         */
+        public Correctness[] mask() {
+            return Correctness.ALL_PATTERNS[this.pattern].clone();
+        }
+
+        /**
+         * @return dictionary id of the guessed word, or {@code -1} if it is not in the dictionary
+         */
+        public int id() {
+            return Wordle.DICTIONARY.id(this.word);
+        }
 
         /**
          * Check if the guess is a possible match to the correct answer {@code word}.
          * @param word assumed correct answer
          * @return {@code true}, if this guess is a possible match to the answer {@code word}, {@code false} otherwise
          */
-        public boolean matches(final Word word, final Correctness[] out) {
-            // TODO this can potentially be optimized with early-return since not necessarily the whole mask
-            //      has to be computed
-            // TODO check if providing output parameters leads to perf improvement
-            return Arrays.equals(Correctness.compute(word, this.word, out), this.mask);
+        public boolean matches(final Word word) {
+            final int a = Wordle.DICTIONARY.id(word);
+            if (a >= 0 && id() >= 0) {
+                return matches(a);
+            }
+            return Correctness.matches(word.packed(), this.word.packed(), this.pattern);
+        }
+
+        /**
+         * Check if the guess is a possible match to the correct answer with dictionary id {@code answer}.
+         * This is the variant for hot paths, which work on ids instead of {@link Word}s.
+         * @param answer dictionary id of the assumed correct answer
+         * @return {@code true}, if this guess is a possible match to the answer, {@code false} otherwise
+         */
+        public boolean matches(final int answer) {
+            final int g = id();
+            if (g < 0) {
+                return Correctness.matches(Wordle.DICTIONARY.word(answer), this.word.packed(), this.pattern);
+            }
+            return Patterns.get(g, answer) == this.pattern;
         }
 
-        public boolean matches(final Word word) {
-            return matches(word, null);
+        /**
+         * Remove all words that do not match this guess from {@code remaining}.
+         * @param remaining bitset over dictionary ids (see {@link Bits})
+         */
+        public void filter(final long[] remaining) {
+            final int g = id();
+            if (g >= 0) {
+                Bits.and(remaining, PatternIndex.compatible(g, this.pattern));
+                return;
+            }
+            for (int w = 0; w < remaining.length; w++) {
+                for (long bits = remaining[w]; bits != 0; bits &= bits - 1) {
+                    final int a = w * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    if (!matches(a)) {
+                        Bits.clear(remaining, a);
+                    }
+                }
+            }
         }
     }
 
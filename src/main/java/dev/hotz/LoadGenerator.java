@@ -0,0 +1,123 @@
+package dev.hotz;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import dev.hotz.Wordle.Correctness;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Plays games against a {@link Server} from concurrent sessions, one connection each, and reports the latency
+ * of the requests. Session {@code s} of {@code n} plays the answers {@code s, s + n, ...}.
+ */
+final class LoadGenerator {
+
+    private final InetSocketAddress server;
+    private final int sessions;
+    private final int maxGuesses;
+
+    LoadGenerator(final InetSocketAddress server, final int sessions) {
+        this(server, sessions, Wordle.MAX_GUESSES);
+    }
+
+    /**
+     * @param maxGuesses guesses per game after which a session gives up on the answer
+     */
+    LoadGenerator(final InetSocketAddress server, final int sessions, final int maxGuesses) {
+        this.server = server;
+        this.sessions = sessions;
+        this.maxGuesses = maxGuesses;
+    }
+
+    /**
+     * Play {@code answers} and print the latency percentiles.
+     */
+    void run(final Word[] answers, final PrintStream out) throws IOException {
+        final var workers = Executors.newFixedThreadPool(this.sessions);
+        final long start = System.nanoTime();
+        final long[] latencies;
+        try {
+            final var sessions = new ArrayList<Future<long[]>>();
+            for (int s = 0; s < this.sessions; s++) {
+                final int session = s;
+                sessions.add(workers.submit(() -> play(answers, session)));
+            }
+            long[] all = new long[0];
+            for (final var session : sessions) {
+                final var l = session.get();
+                final int n = all.length;
+                all = Arrays.copyOf(all, n + l.length);
+                System.arraycopy(l, 0, all, n, l.length);
+            }
+            latencies = all;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating load!", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Session failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        final long nanos = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        out.printf(Locale.US, "%d requests from %d sessions in %d ms (%.0f requests/s)%n",
+                latencies.length, this.sessions, nanos / 1_000_000, latencies.length / (nanos / 1e9));
+        out.printf(Locale.US, "latency p50: %.3f ms, p99: %.3f ms, max: %.3f ms%n",
+                percentile(latencies, .5) / 1e6, percentile(latencies, .99) / 1e6, latencies[latencies.length - 1] / 1e6);
+    }
+
+    /**
+     * @return latency of each request of the session in ns
+     */
+    private long[] play(final Word[] answers, final int session) throws IOException {
+        var latencies = new long[64];
+        int requests = 0;
+        try (final var socket = new Socket(this.server.getAddress(), this.server.getPort());
+             final var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             final var out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            socket.setTcpNoDelay(true);
+            for (int a = session; a < answers.length; a += this.sessions) {
+                final var answer = answers[a];
+                final var history = new StringBuilder();
+                for (int i = 0; i < this.maxGuesses; i++) {
+                    final long start = System.nanoTime();
+                    out.write(history.toString());
+                    out.write('\n');
+                    out.flush();
+                    final var reply = in.readLine();
+                    if (requests == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, requests * 2);
+                    }
+                    latencies[requests++] = System.nanoTime() - start;
+                    if (reply == null || reply.startsWith("ERR")) {
+                        throw new IOException("Server replied '%s' to '%s'".formatted(reply, history));
+                    }
+                    final var guess = new Word(reply);
+                    if (guess.equals(answer)) {
+                        break;
+                    }
+                    history.append(history.isEmpty() ? "" : " ").append(reply).append(' ')
+                            .append(Correctness.shorthand(Correctness.pattern(answer, guess)));
+                }
+            }
+        }
+        return Arrays.copyOf(latencies, requests);
+    }
+
+    private static long percentile(final long[] sorted, final double p) {
+        return sorted[(int) Math.ceil(p * sorted.length) - 1];
+    }
+}
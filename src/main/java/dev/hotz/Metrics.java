@@ -0,0 +1,323 @@
+package dev.hotz;
+
+import java.lang.management.ManagementFactory;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import dev.hotz.Guesser.Guess;
+import dev.hotz.Wordle.Word;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Always-on, process-wide counters of where a run spends its time: per turn latency (as a histogram), allocation
+ * and remaining words of {@link #instrument(String, Guesser) instrumented} guessers, the time of the candidate
+ * filters and the number of candidates scored and patterns computed by the guessers.
+ * <p>
+ * Recording is a few counter updates per guess, so it stays on; the guesses and filters are also emitted as JFR
+ * events ({@code dev.hotz.Guess}, {@code dev.hotz.Filter}) while a recording is running, also one started later
+ * with {@code jcmd <pid> JFR.start}; without one, the events are disabled and cost next to nothing.
+ * Allocation is measured on the thread calling the guesser, so it misses the work of a pool it scores on.
+ */
+public final class Metrics {
+
+    // enough for 8 boards, later turns are counted in the last one
+    private static final int TURNS = 16;
+    // 4 buckets per power of 2 (i.e. at most 25% off), up to 2^63 ns
+    private static final int SUB_BITS = 2;
+    private static final int BUCKETS = Long.SIZE << SUB_BITS;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private static final LongAdder[] GUESSES = adders(TURNS);
+    private static final LongAdder[] GUESS_NANOS = adders(TURNS);
+    private static final AtomicLongArray MAX_NANOS = new AtomicLongArray(TURNS);
+    private static final AtomicLongArray LATENCY = new AtomicLongArray(TURNS * BUCKETS);
+    private static final LongAdder[] ALLOCATED = adders(TURNS);
+
+    private static final LongAdder[] FILTERS = adders(TURNS);
+    private static final LongAdder[] FILTER_NANOS = adders(TURNS);
+    private static final LongAdder[] REMAINING = adders(TURNS);
+    private static final AtomicLongArray MAX_REMAINING = new AtomicLongArray(TURNS);
+
+    private static final LongAdder CANDIDATES = new LongAdder();
+    private static final LongAdder PATTERNS = new LongAdder();
+
+    private Metrics() {
+        // hidden
+    }
+
+    /**
+     * Wrap {@code guesser}, such that its guesses (and those of its forks) are recorded.
+     * @param name name of the guesser for the JFR events
+     */
+    public static Guesser instrument(final String name, final Guesser guesser) {
+        return new Instrumented(Objects.requireNonNull(name), Objects.requireNonNull(guesser));
+    }
+
+    /**
+     * Wrap {@code guesser} for several boards, such that its guesses are recorded.
+     * @param name name of the guesser for the JFR events
+     */
+    public static MultiGuesser instrument(final String name, final MultiGuesser guesser) {
+        return new InstrumentedMulti(Objects.requireNonNull(name), Objects.requireNonNull(guesser));
+    }
+
+    /**
+     * Record a candidate filter.
+     * @param turn number of the guess the filter is for, from 1
+     * @param remaining number of remaining words after filtering
+     * @param nanos time of the filter
+     */
+    public static void filtered(final int turn, final int remaining, final long nanos) {
+        final int t = turn(turn);
+        FILTERS[t].increment();
+        FILTER_NANOS[t].add(nanos);
+        REMAINING[t].add(remaining);
+        MAX_REMAINING.accumulateAndGet(t, remaining, Math::max);
+        final var event = new FilterEvent();
+        if (event.shouldCommit()) {
+            event.turn = turn;
+            event.remaining = remaining;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Record scored candidates.
+     * @param candidates number of candidates scored
+     * @param patterns number of patterns computed for them
+     */
+    public static void scored(final long candidates, final long patterns) {
+        CANDIDATES.add(candidates);
+        PATTERNS.add(patterns);
+    }
+
+    private static void guessed(final int turn, final long nanos, final long allocated) {
+        final int t = turn(turn);
+        GUESSES[t].increment();
+        GUESS_NANOS[t].add(nanos);
+        MAX_NANOS.accumulateAndGet(t, nanos, Math::max);
+        LATENCY.incrementAndGet(t * BUCKETS + bucket(nanos));
+        if (allocated >= 0) {
+            ALLOCATED[t].add(allocated);
+        }
+    }
+
+    /**
+     * @return summary of all recorded metrics
+     */
+    public static String toJson() {
+        final var json = new StringBuilder("{\n  \"turns\": [");
+        boolean any = false;
+        for (int t = 0; t < TURNS; t++) {
+            final long guesses = GUESSES[t].sum();
+            final long filters = FILTERS[t].sum();
+            if (guesses == 0 && filters == 0) {
+                continue;
+            }
+            json.append(any ? ",\n" : "\n").append(String.format(Locale.US,
+                    "    {\"turn\": %d, \"guesses\": %d, \"mean_ms\": %.4f, \"p50_ms\": %.4f, \"p90_ms\": %.4f, \"p99_ms\": %.4f,"
+                            + " \"max_ms\": %.4f, \"allocated_bytes_mean\": %.0f, \"filters\": %d, \"filter_mean_ms\": %.4f,"
+                            + " \"remaining_mean\": %.2f, \"remaining_max\": %d, \"latency_ms\": [",
+                    t + 1, guesses, ms(GUESS_NANOS[t].sum()) / Math.max(guesses, 1),
+                    ms(percentile(t, guesses, .5)), ms(percentile(t, guesses, .9)), ms(percentile(t, guesses, .99)),
+                    ms(MAX_NANOS.get(t)), 1.0 * ALLOCATED[t].sum() / Math.max(guesses, 1), filters,
+                    ms(FILTER_NANOS[t].sum()) / Math.max(filters, 1), 1.0 * REMAINING[t].sum() / Math.max(filters, 1),
+                    MAX_REMAINING.get(t)));
+            // histogram as [upper bound, count] of the non-empty buckets
+            boolean first = true;
+            for (int b = 0; b < BUCKETS; b++) {
+                final long count = LATENCY.get(t * BUCKETS + b);
+                if (count > 0) {
+                    json.append(first ? "" : ", ").append(String.format(Locale.US, "[%.4f, %d]", ms(upper(b)), count));
+                    first = false;
+                }
+            }
+            json.append("]}");
+            any = true;
+        }
+        json.append(String.format(Locale.US, "\n  ],\n  \"candidates_scored\": %d,\n  \"pattern_computations\": %d\n}%n",
+                CANDIDATES.sum(), PATTERNS.sum()));
+        return json.toString();
+    }
+
+    private static int turn(final int turn) {
+        return Math.min(Math.max(turn, 1), TURNS) - 1;
+    }
+
+    private static int bucket(final long nanos) {
+        final long v = Math.max(nanos, 1);
+        final int msb = Long.SIZE - 1 - Long.numberOfLeadingZeros(v);
+        if (msb < SUB_BITS) {
+            return (int) v;
+        }
+        return (msb - SUB_BITS + 1) << SUB_BITS | (int) (v >>> (msb - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+    }
+
+    // largest value in bucket b
+    private static long upper(final int b) {
+        if (b < 1 << SUB_BITS) {
+            return b;
+        }
+        final int shift = (b >>> SUB_BITS) - 1;
+        final long mantissa = (1 << SUB_BITS) | b & ((1 << SUB_BITS) - 1);
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * @return upper bound of the latency bucket of the {@code p}-quantile of turn {@code t}
+     */
+    private static long percentile(final int t, final long count, final double p) {
+        final long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += LATENCY.get(t * BUCKETS + b);
+            if (seen >= rank && seen > 0) {
+                return upper(b);
+            }
+        }
+        return 0;
+    }
+
+    private static double ms(final long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static LongAdder[] adders(final int n) {
+        final var adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+
+    private static long allocated() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Record the guess of the guesser {@code name} in {@code turn}, made by {@code guesser}.
+     */
+    private static Optional<Word> record(final String name, final int turn, final Supplier<Optional<Word>> guesser) {
+        final var event = new GuessEvent();
+        event.begin();
+        final long allocated = allocated();
+        final long start = System.nanoTime();
+        final var guess = guesser.get();
+        final long nanos = System.nanoTime() - start;
+        final long bytes = allocated >= 0 ? allocated() - allocated : -1;
+        guessed(turn, nanos, bytes);
+        if (event.shouldCommit()) {
+            event.guesser = name;
+            event.turn = turn;
+            event.guess = guess.map(Word::toString).orElse(null);
+            event.allocated = bytes;
+            event.end();
+            event.commit();
+        }
+        return guess;
+    }
+
+    private static final class Instrumented implements Guesser {
+
+        private final String name;
+        private final Guesser delegate;
+
+        private Instrumented(final String name, final Guesser delegate) {
+            this.name = name;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Optional<Word> guess(final Deque<Guess> history) {
+            return record(this.name, history.size() + 1, () -> this.delegate.guess(history));
+        }
+
+        @Override
+        public void finish(final long guesses) {
+            this.delegate.finish(guesses);
+        }
+
+        @Override
+        public Optional<Guesser> fork() {
+            return this.delegate.fork().map(g -> new Instrumented(this.name, g));
+        }
+    }
+
+    private static final class InstrumentedMulti implements MultiGuesser {
+
+        private final String name;
+        private final MultiGuesser delegate;
+
+        private InstrumentedMulti(final String name, final MultiGuesser delegate) {
+            this.name = name;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Optional<Word> guess(final List<Deque<Guess>> histories) {
+            // the histories of the unsolved boards are the longest
+            final int turn = histories.stream().mapToInt(Deque::size).max().orElse(0) + 1;
+            return record(this.name, turn, () -> this.delegate.guess(histories));
+        }
+
+        @Override
+        public void finish(final long guesses) {
+            this.delegate.finish(guesses);
+        }
+    }
+
+    @Name("dev.hotz.Guess")
+    @Label("Guess")
+    @Category("Jordle")
+    @Description("A call of Guesser.guess")
+    static final class GuessEvent extends Event {
+
+        @Label("Guesser")
+        String guesser;
+
+        @Label("Turn")
+        int turn;
+
+        @Label("Guess")
+        String guess;
+
+        @Label("Allocated bytes")
+        long allocated;
+    }
+
+    @Name("dev.hotz.Filter")
+    @Label("Filter")
+    @Category("Jordle")
+    @Description("Filtering the remaining words by the feedback")
+    static final class FilterEvent extends Event {
+
+        @Label("Turn")
+        int turn;
+
+        @Label("Remaining words")
+        int remaining;
+
+        @Label("Duration (ns)")
+        long nanos;
+    }
+}
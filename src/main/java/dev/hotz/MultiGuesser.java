@@ -0,0 +1,31 @@
+package dev.hotz;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+import dev.hotz.Guesser.Guess;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Guesser for several boards at once (Dordle, Quordle, ...), where each guess is played on all unsolved boards,
+ * see {@link Wordle#playBoards(Word[], MultiGuesser)}.
+ */
+public interface MultiGuesser {
+
+    /**
+     * Make a guess for all unsolved boards.
+     * @param histories per board, its guesses so far; the history of a solved board ends with the guess that solved
+     *                  it (and does not grow anymore)
+     * @return next guess
+     */
+    Optional<Word> guess(List<Deque<Guess>> histories);
+
+    /**
+     * Called when all boards are solved, after which the guesser is not used anymore.
+     * @param guesses number of guesses of the game
+     */
+    default void finish(long guesses) {
+        // empty default impl
+    }
+}
@@ -0,0 +1,248 @@
+package dev.hotz;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.LongAdder;
+
+import dev.hotz.Guesser.Guess;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Persistent cache from guess history to the next guess of a deterministic guesser.
+ * The first few guesses for a dictionary are always the same computation, so they are kept across runs.
+ * <p>
+ * Histories are keyed by the dictionary id of each guess and its {@link Guess#pattern()}.
+ * The book file is specific to an algorithm (name and configuration) and stores the {@link Dictionary#fingerprint()};
+ * a book for another dictionary or algorithm is ignored.
+ * Histories shorter than the pinned depth are never evicted, deeper ones are evicted least-recently-used first
+ * once the book holds more than its maximum size.
+ */
+public final class OpeningBook {
+
+    // "JBOK"
+    private static final int MAGIC = 0x4a424f4b;
+    private static final int VERSION = 1;
+
+    public static final int DEFAULT_PINNED_DEPTH = 3;
+    public static final int DEFAULT_MAX_SIZE = 100_000;
+
+    private final Path file;
+    private final String algorithm;
+    private final int pinnedDepth;
+
+    private final Map<Key, Integer> pinned = new HashMap<>();
+    private final LinkedHashMap<Key, Integer> deep;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private OpeningBook(final Path file, final String algorithm, final int pinnedDepth, final int maxSize) {
+        this.file = Objects.requireNonNull(file);
+        this.algorithm = Objects.requireNonNull(algorithm);
+        this.pinnedDepth = pinnedDepth;
+        this.deep = new LinkedHashMap<>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Integer> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Load the book of {@code algorithm} from the {@link Util#cacheDir() cache directory}, or start an empty one.
+     * @param algorithm name and configuration of the guesser, e.g. {@code entropy}
+     */
+    public static OpeningBook load(final String algorithm, final int pinnedDepth, final int maxSize) {
+        final var file = Util.cacheDir().resolve("book-%s-v%d.bin".formatted(algorithm.replaceAll("[^A-Za-z0-9._-]", "_"), VERSION));
+        return load(file, algorithm, pinnedDepth, maxSize);
+    }
+
+    public static OpeningBook load(final Path file, final String algorithm, final int pinnedDepth, final int maxSize) {
+        final var book = new OpeningBook(file, algorithm, pinnedDepth, maxSize);
+        if (!Files.isRegularFile(file)) {
+            return book;
+        }
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != Wordle.DICTIONARY.fingerprint() || !in.readUTF().equals(algorithm)) {
+                return book;
+            }
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final var moves = new int[in.readUnsignedByte()];
+                for (int m = 0; m < moves.length; m++) {
+                    moves[m] = in.readInt();
+                }
+                book.store(new Key(moves), in.readInt());
+            }
+        } catch (IOException e) {
+            System.err.printf("Could not read opening book %s (%s), starting empty%n", file, e.getMessage());
+            book.pinned.clear();
+            book.deep.clear();
+        }
+        return book;
+    }
+
+    /**
+     * Write the book, least-recently used deep entries first so that reloading preserves their order.
+     */
+    public synchronized void save() throws IOException {
+        Files.createDirectories(this.file.toAbsolutePath().getParent());
+        final var tmp = Files.createTempFile(this.file.toAbsolutePath().getParent(), "book", ".tmp");
+        try {
+            try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(Wordle.DICTIONARY.fingerprint());
+                out.writeUTF(this.algorithm);
+                out.writeInt(this.pinned.size() + this.deep.size());
+                for (final var entries : Arrays.asList(this.pinned, this.deep)) {
+                    for (final var e : entries.entrySet()) {
+                        out.writeByte(e.getKey().moves.length);
+                        for (final int m : e.getKey().moves) {
+                            out.writeInt(m);
+                        }
+                        out.writeInt(e.getValue());
+                    }
+                }
+            }
+            Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Look up the next guess for {@code history}, counting a hit or miss.
+     * @return dictionary id of the next guess, empty if not in the book
+     */
+    public OptionalInt lookup(final Deque<Guess> history) {
+        final var key = Key.of(history);
+        final Integer guess;
+        synchronized (this) {
+            guess = key == null ? null : key.moves.length < this.pinnedDepth ? this.pinned.get(key) : this.deep.get(key);
+        }
+        if (guess == null) {
+            this.misses.increment();
+            return OptionalInt.empty();
+        }
+        this.hits.increment();
+        return OptionalInt.of(guess);
+    }
+
+    /**
+     * Remember {@code guess} (a dictionary id) as the next guess for {@code history}.
+     */
+    public void put(final Deque<Guess> history, final int guess) {
+        final var key = Key.of(history);
+        if (key != null && guess >= 0) {
+            synchronized (this) {
+                store(key, guess);
+            }
+        }
+    }
+
+    private void store(final Key key, final int guess) {
+        (key.moves.length < this.pinnedDepth ? this.pinned : this.deep).put(key, guess);
+    }
+
+    /**
+     * Wrap {@code guesser}, such that the book is consulted before it runs its search and filled with its guesses.
+     * The wrapped guesser has to handle histories with guesses it has not been asked about (see {@link Guesser#guess(Deque)}).
+     */
+    public Guesser wrap(final Guesser guesser) {
+        return new Booked(Objects.requireNonNull(guesser));
+    }
+
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    public synchronized int size() {
+        return this.pinned.size() + this.deep.size();
+    }
+
+    private final class Booked implements Guesser {
+
+        private final Guesser delegate;
+
+        private Booked(final Guesser delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Optional<Word> guess(final Deque<Guess> history) {
+            final var known = lookup(history);
+            if (known.isPresent()) {
+                return Optional.of(Wordle.DICTIONARY.toWord(known.getAsInt()));
+            }
+            final var guess = this.delegate.guess(history);
+            guess.ifPresent(g -> put(history, Wordle.DICTIONARY.id(g)));
+            return guess;
+        }
+
+        @Override
+        public void finish(final long guesses) {
+            this.delegate.finish(guesses);
+        }
+
+        @Override
+        public Optional<Guesser> fork() {
+            return this.delegate.fork().map(Booked::new);
+        }
+    }
+
+    private static final class Key {
+
+        // per guess: dictionary id << 8 | pattern index
+        private final int[] moves;
+
+        private Key(final int[] moves) {
+            this.moves = moves;
+        }
+
+        /**
+         * @return key for {@code history}, or {@code null} if it contains words that are not in the dictionary
+         */
+        private static Key of(final Deque<Guess> history) {
+            final var moves = new int[history.size()];
+            int i = 0;
+            for (final var guess : history) {
+                final int id = guess.id();
+                if (id < 0) {
+                    return null;
+                }
+                moves[i++] = id << 8 | guess.pattern();
+            }
+            return new Key(moves);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || o instanceof final Key key && Arrays.equals(this.moves, key.moves);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.moves);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dev.hotz;
+
+import java.util.Optional;
+
+import dev.hotz.Wordle.Correctness;
+
+/**
+ * Computes the correctness patterns of one guess against a batch of answers, e.g. to histogram them.
+ */
+public interface PatternEngine {
+
+    /**
+     * Compute the pattern of {@code guess} against each of {@code answers}.
+     * @param guess dictionary id of the guessed word
+     * @param answers assumed answers
+     * @param out receives the pattern index (see {@link Correctness#idx(Correctness[])}) against the {@code k}-th
+     *            answer at {@code out[k]}, to be read as unsigned byte; at least {@code answers.size()} long
+     */
+    void patterns(int guess, Columns answers, byte[] out);
+
+    /**
+     * @return engine looking up patterns in the {@link Patterns} matrix
+     */
+    static PatternEngine matrix() {
+        return (guess, answers, out) -> {
+            for (int k = 0; k < answers.size(); k++) {
+                out[k] = (byte) Patterns.get(guess, answers.id(k));
+            }
+        };
+    }
+
+    /**
+     * @return engine computing each pattern with {@link Correctness#pattern(int, int)}
+     */
+    static PatternEngine scalar() {
+        return (guess, answers, out) -> {
+            final int g = Wordle.DICTIONARY.word(guess);
+            for (int k = 0; k < answers.size(); k++) {
+                out[k] = (byte) Correctness.pattern(Wordle.DICTIONARY.word(answers.id(k)), g);
+            }
+        };
+    }
+
+    /**
+     * @return engine computing many patterns at once with the Vector API, empty if the JVM was not started with
+     *         {@code --add-modules jdk.incubator.vector}
+     */
+    static Optional<PatternEngine> vector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new VectorPatterns());
+    }
+}
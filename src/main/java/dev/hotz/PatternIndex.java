@@ -0,0 +1,49 @@
+package dev.hotz;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Index from (guess id, pattern) to the bitset (see {@link Bits}) of all dictionary words compatible with it,
+ * i.e. the answers for which the guess produces the pattern. Filtering a set of candidates by a guess becomes a
+ * word-wise AND.
+ * <p>
+ * The full index (dictionary size &times; 243 bitsets) would take gigabytes, so bitsets are derived on demand from
+ * the {@link Patterns pattern matrix} and kept in a bounded, lock-free direct-mapped cache. Openers and common
+ * second guesses repeat across games and stay cached.
+ */
+public final class PatternIndex {
+
+    private static final int SLOTS = 1 << 13;
+
+    private static final AtomicReferenceArray<Entry> CACHE = new AtomicReferenceArray<>(SLOTS);
+
+    private PatternIndex() {
+        // hidden
+    }
+
+    /**
+     * @param guess dictionary id of the guess
+     * @param pattern pattern index as in {@link Wordle.Correctness#idx(Wordle.Correctness[])}
+     * @return bitset of all words compatible with {@code guess} resulting in {@code pattern}, must not be modified
+     */
+    public static long[] compatible(final int guess, final int pattern) {
+        final int key = guess * Wordle.Correctness.ALL_PATTERNS.length + pattern;
+        final int slot = (key * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(SLOTS));
+        final var cached = CACHE.get(slot);
+        if (cached != null && cached.key == key) {
+            return cached.bits;
+        }
+        final int n = Wordle.DICTIONARY.size();
+        final var bits = new long[Bits.words(n)];
+        for (int a = 0; a < n; a++) {
+            if (Patterns.get(guess, a) == pattern) {
+                Bits.set(bits, a);
+            }
+        }
+        CACHE.set(slot, new Entry(key, bits));
+        return bits;
+    }
+
+    private record Entry(int key, long[] bits) {
+    }
+}
@@ -0,0 +1,127 @@
+package dev.hotz;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+import dev.hotz.Wordle.Correctness;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Precomputed guess &times; answer pattern matrix over all dictionary words.
+ * Each cell holds the {@link Correctness#idx(Correctness[])} (0..242) of a guess against an answer in one byte,
+ * so that computing a correctness pattern becomes a table lookup.
+ * <p>
+ * The matrix is computed once and stored in a versioned binary file which is memory-mapped on first use.
+ * The file carries the {@link Dictionary#fingerprint()} and is rebuilt whenever the dictionary changes.
+ * The cache directory defaults to {@code ~/.cache/jordle} and can be set with the system property {@code jordle.cache}.
+ */
+public final class Patterns {
+
+    // "JPAT"
+    private static final int MAGIC = 0x4a504154;
+    private static final int VERSION = 1;
+    // magic, version, number of words, fingerprint
+    private static final int HEADER = 4 + 4 + 4 + 8;
+
+    private Patterns() {
+        // hidden
+    }
+
+    /**
+     * Correctness pattern of guess {@code guess} against answer {@code answer}, both given as dictionary ids.
+     * @param guess id of the guessed word
+     * @param answer id of the assumed answer
+     * @return pattern index as in {@link Correctness#idx(Correctness[])}
+     */
+    public static int get(final int guess, final int answer) {
+        return Holder.MATRIX.get(guess * Wordle.DICTIONARY.size() + answer) & 0xff;
+    }
+
+    /**
+     * Correctness pattern of {@code guess} against {@code answer}. Uses the matrix if both words are in the
+     * dictionary and computes the pattern otherwise.
+     */
+    public static int pattern(final Word answer, final Word guess) {
+        final int a = Wordle.DICTIONARY.id(answer);
+        final int g = Wordle.DICTIONARY.id(guess);
+        if (a < 0 || g < 0) {
+            return Correctness.pattern(answer, guess);
+        }
+        return get(g, a);
+    }
+
+    private static final class Holder {
+        private static final ByteBuffer MATRIX = load();
+    }
+
+    private static ByteBuffer load() {
+        final int n = Wordle.DICTIONARY.size();
+        final long fingerprint = Wordle.DICTIONARY.fingerprint();
+        final var dir = Util.cacheDir();
+        final var file = dir.resolve("patterns-v%d.bin".formatted(VERSION));
+        try {
+            if (!isValid(file, n, fingerprint)) {
+                Files.createDirectories(dir);
+                final var tmp = Files.createTempFile(dir, "patterns", ".tmp");
+                try {
+                    build(tmp, n, fingerprint);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            try (final var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                return ch.map(FileChannel.MapMode.READ_ONLY, HEADER, (long) n * n);
+            }
+        } catch (IOException e) {
+            System.err.printf("Could not use pattern file %s (%s), computing in memory%n", file, e.getMessage());
+            final var matrix = ByteBuffer.allocate(n * n);
+            fill(matrix, n);
+            return matrix;
+        }
+    }
+
+    private static boolean isValid(final Path file, final int n, final long fingerprint) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != HEADER + (long) n * n) {
+            return false;
+        }
+        try (final var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            final var header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining() && ch.read(header) >= 0) {
+                // read whole header
+            }
+            header.flip();
+            return header.remaining() == HEADER
+                    && header.getInt() == MAGIC
+                    && header.getInt() == VERSION
+                    && header.getInt() == n
+                    && header.getLong() == fingerprint;
+        }
+    }
+
+    private static void build(final Path file, final int n, final long fingerprint) throws IOException {
+        try (final var ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final var out = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) n * n);
+            out.putInt(MAGIC).putInt(VERSION).putInt(n).putLong(fingerprint);
+            fill(out.slice(HEADER, n * n), n);
+            out.force();
+        }
+    }
+
+    private static void fill(final ByteBuffer matrix, final int n) {
+        IntStream.range(0, n).parallel().forEach(g -> {
+            final var row = new byte[n];
+            final int guess = Wordle.DICTIONARY.word(g);
+            for (int a = 0; a < n; a++) {
+                row[a] = (byte) Correctness.pattern(Wordle.DICTIONARY.word(a), guess);
+            }
+            matrix.put(g * n, row);
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package dev.hotz;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free aggregation of game results (score, solved games and histogram of guesses), so that games can be
+ * recorded concurrently from several workers and the report does not depend on the order they finished in.
+ */
+final class Results {
+
+    private final AtomicInteger played = new AtomicInteger();
+    private final LongAdder score = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    // index: number of guesses
+    private final AtomicIntegerArray histogram;
+
+    Results(final int maxGuesses) {
+        this.histogram = new AtomicIntegerArray(maxGuesses + 1);
+    }
+
+    /**
+     * Record the outcome of one game.
+     * @param result number of guesses if solved, empty otherwise
+     */
+    void record(final OptionalInt result) {
+        if (result.isPresent()) {
+            final int s = result.getAsInt();
+            this.score.add(s);
+            this.solved.increment();
+            this.histogram.incrementAndGet(s);
+        }
+        this.played.incrementAndGet();
+    }
+
+    int played() {
+        return this.played.get();
+    }
+
+    long solved() {
+        return this.solved.sum();
+    }
+
+    /**
+     * @return total number of guesses of the solved games
+     */
+    long score() {
+        return this.score.sum();
+    }
+
+    /**
+     * Print a one-line progress bar, meant to be overwritten by the next one.
+     * @param max total number of games
+     */
+    void printProgress(final PrintStream out, final int max) {
+        final int curr = played();
+        final long score = this.score.sum();
+        final long solved = this.solved.sum();
+        int percent = (int) (1.0 * curr * 100 / max);
+        final String string = "\r"
+                + String.format(Locale.US, "avg. score: %.3f ", 1.0 * score / solved)
+                + " ".repeat(percent == 0 ? 2 : 2 - (int) (Math.log10(percent)))
+                + " %d%% [".formatted(percent) + "=".repeat((int) (percent * .42)) + '>' + " ".repeat(
+                (int) ((100 - percent) * .42)) + ']'
+                + " ".repeat((int) (((int) (Math.log10(max)) - (int) (Math.log10(Math.max(curr, 1)))) * .42))
+                + " %d/%d".formatted(curr, max);
+        out.print(string);
+    }
+
+    /**
+     * Print a one-line running score for an unknown number of games, meant to be overwritten by the next one.
+     */
+    void printRunning(final PrintStream out) {
+        final long solved = this.solved.sum();
+        out.printf(Locale.US, "\ravg. score: %.3f  solved: %.2f%%  %d games", 1.0 * this.score.sum() / solved,
+                100.0 * solved / Math.max(played(), 1), played());
+    }
+
+    /**
+     * Print the final report: histogram of guesses, avg. score and percentage of solved games.
+     * @param max total number of games
+     */
+    void printReport(final PrintStream out, final int max) {
+        int last = 0;
+        long sum = 0;
+        for (int s = 0; s < this.histogram.length(); s++) {
+            final int c = this.histogram.get(s);
+            sum += c;
+            if (c > 0) {
+                last = s;
+            }
+        }
+        for (int s = 1; s <= last; s++) {
+            final int c = this.histogram.get(s);
+            final var frac = 1.0 * c / sum;
+            final int hash = (int) Math.round(30 * frac);
+            final int white = (int) Math.round(30 * (1.0 - frac));
+            out.printf("%d: %s%s (%d)%n", s, "#".repeat(hash), " ".repeat(white), c);
+        }
+        out.printf(Locale.US, "avg score: %f%n", 1.0 * this.score.sum() / this.solved.sum());
+        out.printf(Locale.US, "solved: %.2f%%%n", 1.0 * this.solved.sum() / max * 100);
+    }
+}
@@ -0,0 +1,98 @@
+package dev.hotz;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import dev.hotz.Guesser.Guess;
+import dev.hotz.Wordle.Correctness;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Line protocol for interactive solving, served from a resident JVM so that replies skip startup, dictionary load
+ * and JIT warm-up.
+ * <p>
+ * A request is one line with the history so far as pairs of guess and feedback in the shorthand of
+ * {@link Correctness#maskOf(String)}, e.g. {@code tares WWMWC lions CWWMW}, or an empty line for the first guess.
+ * The reply is one line with the next guess, or {@code ERR <reason>}.
+ * Requests are stateless: each one is answered by a fresh guesser that catches up with the whole history, so any
+ * number of sessions can be served concurrently and a session may continue on another connection.
+ * Repeated histories are cheap with an {@link OpeningBook}.
+ */
+final class Server {
+
+    private final Supplier<Guesser> guessers;
+
+    /**
+     * @param guessers creates a guesser per request
+     */
+    Server(final Supplier<Guesser> guessers) {
+        this.guessers = Objects.requireNonNull(guessers);
+    }
+
+    /**
+     * @return reply to {@code request}
+     */
+    String answer(final String request) {
+        final var history = new ArrayDeque<Guess>();
+        final var tokens = request.isBlank() ? new String[0] : request.trim().split("\\s+");
+        if (tokens.length % 2 != 0) {
+            return "ERR expected pairs of guess and mask, got: " + request;
+        }
+        try {
+            for (int t = 0; t < tokens.length; t += 2) {
+                history.addLast(new Guess(new Word(tokens[t]), Correctness.maskOf(tokens[t + 1])));
+            }
+        } catch (IllegalArgumentException e) {
+            return "ERR " + e.getMessage().strip();
+        }
+        return this.guessers.get().guess(history).map(Word::toString).orElse("ERR no word matches");
+    }
+
+    /**
+     * Answer the requests of one session until {@code in} ends.
+     */
+    void serve(final BufferedReader in, final Writer out) throws IOException {
+        for (var line = in.readLine(); line != null; line = in.readLine()) {
+            out.write(answer(line));
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    /**
+     * Accept connections on {@code socket} until it is closed, serving each on {@code sessions}.
+     */
+    void listen(final ServerSocket socket, final ExecutorService sessions) throws IOException {
+        while (!socket.isClosed()) {
+            final Socket client;
+            try {
+                client = socket.accept();
+            } catch (IOException e) {
+                if (socket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            sessions.execute(() -> {
+                try (client;
+                     final var in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                     final var out = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII)) {
+                    client.setTcpNoDelay(true);
+                    serve(in, out);
+                } catch (IOException e) {
+                    System.err.printf("Session %s failed: %s%n", client.getRemoteSocketAddress(), e.getMessage());
+                }
+            });
+        }
+    }
+}
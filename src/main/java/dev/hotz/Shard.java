@@ -0,0 +1,259 @@
+package dev.hotz;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+
+/**
+ * Part {@code index} of {@code count} of a run over the first {@code games} answers: the games whose position
+ * modulo {@code count} is {@code index}, so that slow and fast answers spread evenly over the shards.
+ * <p>
+ * The results are written to a partial-result file, periodically while playing so that an interrupted shard resumes
+ * with the games it has not played yet, and the files of all shards are {@link #merge(List, PrintStream) merged} into
+ * the report of the whole run.
+ * Layout (big endian): magic, version, dictionary fingerprint, algorithm, max. guesses, index, count, games, histogram
+ * of guesses (index 0 unused), score, solved, played, then per played game its position and guesses (0 if unsolved).
+ */
+final class Shard {
+
+    // "JSHD"
+    private static final int MAGIC = 0x4a534844;
+    private static final int VERSION = 1;
+
+    private static final byte NOT_PLAYED = -1;
+    private static final byte UNSOLVED = 0;
+
+    private final String algorithm;
+    private final int maxGuesses;
+    private final int index;
+    private final int count;
+    private final int games;
+    // per game of the run: guesses, UNSOLVED or NOT_PLAYED
+    private final byte[] results;
+
+    Shard(final String algorithm, final int index, final int count, final int games) {
+        this(algorithm, Wordle.MAX_GUESSES, index, count, games);
+    }
+
+    Shard(final String algorithm, final int maxGuesses, final int index, final int count, final int games) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Shard must be i/n with 0 <= i < n, was: %d/%d".formatted(index, count));
+        }
+        this.algorithm = Objects.requireNonNull(algorithm);
+        this.maxGuesses = maxGuesses;
+        this.index = index;
+        this.count = count;
+        this.games = games;
+        this.results = new byte[games];
+        Arrays.fill(this.results, NOT_PLAYED);
+    }
+
+    /**
+     * @param spec {@code i/n}
+     */
+    static Shard of(final String spec, final String algorithm, final int maxGuesses, final int games) {
+        final var parts = spec.split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Shard must be i/n, was: " + spec);
+        }
+        try {
+            return new Shard(algorithm, maxGuesses, Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), games);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Shard must be i/n, was: " + spec);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.index + "/" + this.count;
+    }
+
+    /**
+     * @return number of games of this shard
+     */
+    int size() {
+        return (this.games - this.index + this.count - 1) / this.count;
+    }
+
+    /**
+     * @return positions of the games of this shard not played yet
+     */
+    synchronized int[] remaining() {
+        return IntStream.iterate(this.index, g -> g < this.games, g -> g + this.count)
+                .filter(g -> this.results[g] == NOT_PLAYED)
+                .toArray();
+    }
+
+    synchronized void record(final int game, final OptionalInt result) {
+        this.results[game] = (byte) result.orElse(UNSOLVED);
+    }
+
+    /**
+     * Record the games already played to {@code results}.
+     */
+    synchronized void replay(final Results results) {
+        for (final byte r : this.results) {
+            if (r != NOT_PLAYED) {
+                results.record(r == UNSOLVED ? OptionalInt.empty() : OptionalInt.of(r));
+            }
+        }
+    }
+
+    /**
+     * Take over the games of the same shard played in {@code file}, if any.
+     * @return number of games taken over
+     */
+    int resume(final Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        final var saved = load(file);
+        if (!saved.algorithm.equals(this.algorithm) || saved.maxGuesses != this.maxGuesses || saved.index != this.index
+                || saved.count != this.count || saved.games != this.games) {
+            throw new IllegalArgumentException("%s is shard %s of %d %s games with %d guesses, not %s of %d %s games with %d guesses".formatted(
+                    file, saved, saved.games, saved.algorithm, saved.maxGuesses, this, this.games, this.algorithm, this.maxGuesses));
+        }
+        synchronized (this) {
+            System.arraycopy(saved.results, 0, this.results, 0, this.games);
+        }
+        return saved.played();
+    }
+
+    private int played() {
+        int played = 0;
+        for (final byte r : this.results) {
+            played += r != NOT_PLAYED ? 1 : 0;
+        }
+        return played;
+    }
+
+    /**
+     * Write the results so far, replacing {@code file} atomically.
+     */
+    void save(final Path file) throws IOException {
+        final byte[] results;
+        synchronized (this) {
+            results = this.results.clone();
+        }
+        final var histogram = new int[this.maxGuesses + 1];
+        long score = 0;
+        int solved = 0;
+        int played = 0;
+        for (final byte r : results) {
+            if (r != NOT_PLAYED) {
+                played++;
+            }
+            if (r > 0) {
+                histogram[r]++;
+                score += r;
+                solved++;
+            }
+        }
+
+        final var dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        final var tmp = Files.createTempFile(dir, "shard", ".tmp");
+        try {
+            try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(Wordle.DICTIONARY.fingerprint());
+                out.writeUTF(this.algorithm);
+                out.writeByte(this.maxGuesses);
+                out.writeInt(this.index);
+                out.writeInt(this.count);
+                out.writeInt(this.games);
+                for (final int h : histogram) {
+                    out.writeInt(h);
+                }
+                out.writeLong(score);
+                out.writeInt(solved);
+                out.writeInt(played);
+                for (int g = 0; g < results.length; g++) {
+                    if (results[g] != NOT_PLAYED) {
+                        out.writeInt(g);
+                        out.writeByte(results[g]);
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    static Shard load(final Path file) throws IOException {
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a shard file");
+            }
+            if (in.readLong() != Wordle.DICTIONARY.fingerprint()) {
+                throw new IOException(file + " is for another dictionary");
+            }
+            final var algorithm = in.readUTF();
+            final int maxGuesses = in.readUnsignedByte();
+            final var shard = new Shard(algorithm, maxGuesses, in.readInt(), in.readInt(), in.readInt());
+            // the aggregates are for reading the file elsewhere, they follow from the games
+            in.skipNBytes((maxGuesses + 1) * Integer.BYTES + Long.BYTES + Integer.BYTES);
+            final int played = in.readInt();
+            for (int i = 0; i < played; i++) {
+                final int game = in.readInt();
+                shard.results[game] = in.readByte();
+            }
+            return shard;
+        }
+    }
+
+    /**
+     * Combine the files of all shards of a run and print the report of the whole run.
+     * @throws IOException if a shard is missing, incomplete, or from another run
+     */
+    static void merge(final List<Path> files, final PrintStream out) throws IOException {
+        if (files.isEmpty()) {
+            throw new IOException("No shard files");
+        }
+        final var shards = new Shard[files.size()];
+        for (int f = 0; f < shards.length; f++) {
+            shards[f] = load(files.get(f));
+        }
+        final var first = shards[0];
+        final var seen = new boolean[first.count];
+        for (int f = 0; f < shards.length; f++) {
+            final var shard = shards[f];
+            if (!shard.algorithm.equals(first.algorithm) || shard.maxGuesses != first.maxGuesses || shard.count != first.count
+                    || shard.games != first.games) {
+                throw new IOException("%s is from another run than %s".formatted(files.get(f), files.get(0)));
+            }
+            if (seen[shard.index]) {
+                throw new IOException("Shard %s is given twice".formatted(shard));
+            }
+            seen[shard.index] = true;
+            final int missing = shard.remaining().length;
+            if (missing > 0) {
+                throw new IOException("Shard %s in %s is incomplete, %d games left".formatted(shard, files.get(f), missing));
+            }
+        }
+        for (int i = 0; i < seen.length; i++) {
+            if (!seen[i]) {
+                throw new IOException("Shard %d/%d is missing".formatted(i, first.count));
+            }
+        }
+
+        final var results = new Results(first.maxGuesses);
+        for (final var shard : shards) {
+            shard.replay(results);
+        }
+        results.printReport(out, first.games);
+    }
+}
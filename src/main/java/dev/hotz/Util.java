@@ -1,8 +1,6 @@
 package dev.hotz;
 
-import java.util.Objects;
-import java.util.function.BiFunction;
-import java.util.stream.Stream;
+import java.nio.file.Path;
 
 public final class Util {
 
@@ -10,12 +8,11 @@ public final class Util {
         // hidden
     }
 
-    static <L, R, O> Stream<O> zip(final Stream<L> left, final Stream<R> right, final BiFunction<L, R, O> zip) {
-        final var r = right.iterator();
-        return left.map(x1 -> r.hasNext() ? zip.apply(x1, r.next()) : null).takeWhile(Objects::nonNull);
-    }
-
-    public record Pair<L,R>(L left, R right) {
-
+    /**
+     * Directory for derived data such as the pattern matrix: the system property {@code jordle.cache} if set,
+     * {@code ~/.cache/jordle} otherwise.
+     */
+    public static Path cacheDir() {
+        return Path.of(System.getProperty("jordle.cache", Path.of(System.getProperty("user.home"), ".cache", "jordle").toString()));
     }
 }
@@ -0,0 +1,99 @@
+package dev.hotz;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import dev.hotz.Wordle.Correctness;
+import dev.hotz.Wordle.Word;
+
+/**
+ * {@link PatternEngine} on the (incubating) Vector API: one byte lane per answer, so that a vector of the preferred
+ * species computes the patterns of 16 to 64 answers with a few compares per letter position.
+ * Only to be loaded if {@code jdk.incubator.vector} is present, see {@link PatternEngine#vector()}.
+ * <p>
+ * Guess letter {@code i} is misplaced if the answer has more unused (non-green) copies of it than there are
+ * non-green copies of it earlier in the guess. As a position {@code j} with the same guess letter is green exactly
+ * if the answer has the letter there, this is the same as: the answer has the letter at more positions {@code j}
+ * with {@code j < i} or a different guess letter than there are copies of it before {@code i} in the guess.
+ * Both sides only depend on the guess and compares against the answer columns, so the lanes need no branches.
+ */
+final class VectorPatterns implements PatternEngine {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    // place value of each position in a pattern index
+    private static final byte[] PLACE = { 81, 27, 9, 3, 1 };
+
+    @Override
+    public void patterns(final int guess, final Columns answers, final byte[] out) {
+        final int g = Wordle.DICTIONARY.word(guess);
+        final var letters = new byte[Wordle.LENGTH];
+        for (int i = 0; i < Wordle.LENGTH; i++) {
+            letters[i] = (byte) Word.letterAt(g, i);
+        }
+        // counts[i][j]: whether an answer letter at j counts for guess letter i; copies[i]: copies before i
+        final var counts = new byte[Wordle.LENGTH][Wordle.LENGTH];
+        final var copies = new byte[Wordle.LENGTH];
+        for (int i = 0; i < Wordle.LENGTH; i++) {
+            for (int j = 0; j < Wordle.LENGTH; j++) {
+                counts[i][j] = (byte) (j < i || letters[j] != letters[i] ? 1 : 0);
+                if (j < i && letters[j] == letters[i]) {
+                    copies[i]++;
+                }
+            }
+        }
+        final byte[] l0 = answers.letters(0);
+        final byte[] l1 = answers.letters(1);
+        final byte[] l2 = answers.letters(2);
+        final byte[] l3 = answers.letters(3);
+        final byte[] l4 = answers.letters(4);
+
+        // one pass per position: the whole pattern in one loop body is too large for the JIT to inline,
+        // and vectors that are not inlined end up on the heap
+        final int n = answers.size();
+        final int bound = SPECIES.loopBound(n);
+        Arrays.fill(out, 0, bound, (byte) 0);
+        for (int i = 0; i < Wordle.LENGTH; i++) {
+            for (int k = 0; k < bound; k += SPECIES.length()) {
+                final var c0 = ByteVector.fromArray(SPECIES, l0, k);
+                final var c1 = ByteVector.fromArray(SPECIES, l1, k);
+                final var c2 = ByteVector.fromArray(SPECIES, l2, k);
+                final var c3 = ByteVector.fromArray(SPECIES, l3, k);
+                final var c4 = ByteVector.fromArray(SPECIES, l4, k);
+                // wraps for patterns above 127, which are read as unsigned
+                ByteVector.fromArray(SPECIES, out, k)
+                        .add(digit(i, letters, counts, copies, c0, c1, c2, c3, c4, ByteVector.fromArray(SPECIES, answers.letters(i), k)))
+                        .intoArray(out, k);
+            }
+        }
+        for (int k = bound; k < n; k++) {
+            out[k] = (byte) Correctness.pattern(Wordle.DICTIONARY.word(answers.id(k)), g);
+        }
+    }
+
+    /**
+     * Digit (0: correct, 1: misplaced, 2: wrong) of guess position {@code i} in each lane, times its place value.
+     * @param column answer letters at position {@code i}
+     */
+    private static ByteVector digit(final int i, final byte[] letters, final byte[][] counts, final byte[] copies,
+                                    final ByteVector c0, final ByteVector c1, final ByteVector c2,
+                                    final ByteVector c3, final ByteVector c4, final ByteVector column) {
+        final byte letter = letters[i];
+        final byte[] count = counts[i];
+        final VectorMask<Byte> green = column.eq(letter);
+        final var misplaced = ByteVector.zero(SPECIES)
+                .add(count[0], c0.eq(letter))
+                .add(count[1], c1.eq(letter))
+                .add(count[2], c2.eq(letter))
+                .add(count[3], c3.eq(letter))
+                .add(count[4], c4.eq(letter))
+                .compare(VectorOperators.GT, copies[i])
+                .andNot(green);
+        return ByteVector.broadcast(SPECIES, (byte) (2 * PLACE[i]))
+                .blend(PLACE[i], misplaced)
+                .blend((byte) 0, green);
+    }
+}
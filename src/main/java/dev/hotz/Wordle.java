@@ -4,9 +4,11 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Map;
+import java.util.Deque;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.stream.Collectors;
 
@@ -17,55 +19,255 @@ import java.util.stream.Collectors;
  */
 public final class Wordle {
 
-    // max allowed guesses until failed
-    private static final int MAX_GUESSES = 6;
+    // max allowed guesses until failed, by default
+    public static final int MAX_GUESSES = 6;
 
     // 5 letters
     public static final int LENGTH = 5;
 
-    // TODO better dictionary handling, ideally this could be done in the generate-sources phase?
-    public static final Map<Word, Long> DICTIONARY = loadDict();
+    // compiled at build time, see CompiledDictionary
+    private static final Optional<CompiledDictionary> COMPILED = CompiledDictionary.load();
 
-    private static Map<Word, Long> loadDict() {
+    public static final Dictionary DICTIONARY = COMPILED.map(CompiledDictionary::dictionary).orElseGet(Wordle::parseDict);
+
+    /**
+     * @return answers of the game, in the order of {@code answers.txt}
+     */
+    public static Word[] answers() {
+        return COMPILED.map(c -> Arrays.stream(c.answers()).mapToObj(DICTIONARY::toWord).toArray(Word[]::new))
+                .orElseGet(Wordle::parseAnswers);
+    }
+
+    private final int maxGuesses;
+
+    public Wordle() {
+        this(MAX_GUESSES);
+    }
+
+    /**
+     * @param maxGuesses max. number of guesses until a game is lost
+     */
+    public Wordle(final int maxGuesses) {
+        if (maxGuesses < 1) {
+            throw new IllegalArgumentException("Max. guesses must be positive, was: " + maxGuesses);
+        }
+        this.maxGuesses = maxGuesses;
+    }
+
+    public int maxGuesses() {
+        return this.maxGuesses;
+    }
+
+    // fallback for running without the compiled resource, e.g. from an IDE
+    static Dictionary parseDict() {
         try (final var in = new BufferedReader(new InputStreamReader(
                 Objects.requireNonNull(Wordle.class.getClassLoader().getResourceAsStream("dictionary.txt"))))) {
-            return in.lines()
+            final var lines = in.lines()
                     .filter(l -> !l.startsWith("#"))
                     .map(l -> l.split(" "))
-                    .collect(Collectors.toMap(l -> new Word(l[0]), l -> Long.valueOf(l[1])));
+                    .toList();
+            final var words = new int[lines.size()];
+            final var counts = new long[lines.size()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = Word.pack(lines.get(i)[0]);
+                counts[i] = Long.parseLong(lines.get(i)[1]);
+            }
+            return new Dictionary(words, counts);
         } catch (IOException e) {
             throw new RuntimeException("Could not load dictionary!");
         }
     }
 
+    static Word[] parseAnswers() {
+        try (final var in = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(Wordle.class.getClassLoader().getResourceAsStream("answers.txt"))))) {
+            return in.lines()
+                    .filter(l -> !l.startsWith("#"))
+                    .map(Word::new)
+                    .toArray(Word[]::new);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load games!");
+        }
+    }
+
     public OptionalInt play(final Word answer, final Guesser guesser) {
         Objects.requireNonNull(answer);
         Objects.requireNonNull(guesser);
 
         final var hist = new ArrayDeque<Guesser.Guess>();
-        for (int i = 1; i <= MAX_GUESSES; i++) {
+        for (int i = 1; i <= this.maxGuesses; i++) {
             final var guess = guesser.guess(hist).orElseThrow();
             if (answer.equals(guess)) {
                 guesser.finish(i);
                 return OptionalInt.of(i);
             }
-            assert DICTIONARY.containsKey(guess) : "Guessed word '" + guess + "' is not in dictionary!";
-            hist.addLast(new Guesser.Guess(guess, Correctness.compute(answer, guess)));
+            assert DICTIONARY.contains(guess) : "Guessed word '" + guess + "' is not in dictionary!";
+            hist.addLast(new Guesser.Guess(guess, Correctness.pattern(answer, guess)));
         }
         return OptionalInt.empty();
     }
 
     /**
-     * A byte[]-wrapper class that works as expected in a HashMap and has very lightweight "charAt"-like comparison for the given String.
+     * Play several boards at once (Dordle, Quordle, ...): each guess is played on all unsolved boards, and the game
+     * is won when every board is solved within the max. number of guesses.
+     * @param answers answer of each board
+     * @return number of guesses until the last board was solved, empty if not all were solved
+     */
+    public OptionalInt playBoards(final Word[] answers, final MultiGuesser guesser) {
+        Objects.requireNonNull(answers);
+        Objects.requireNonNull(guesser);
+
+        final var histories = new ArrayList<Deque<Guesser.Guess>>(answers.length);
+        for (int b = 0; b < answers.length; b++) {
+            histories.add(new ArrayDeque<>());
+        }
+        final var solved = new boolean[answers.length];
+        int unsolved = answers.length;
+        for (int i = 1; i <= this.maxGuesses; i++) {
+            final var guess = guesser.guess(histories).orElseThrow();
+            assert DICTIONARY.contains(guess) : "Guessed word '" + guess + "' is not in dictionary!";
+            for (int b = 0; b < answers.length; b++) {
+                if (!solved[b]) {
+                    histories.get(b).addLast(new Guesser.Guess(guess, Patterns.pattern(answers[b], guess)));
+                    if (answers[b].equals(guess)) {
+                        solved[b] = true;
+                        unsolved--;
+                    }
+                }
+            }
+            if (unsolved == 0) {
+                guesser.finish(i);
+                return OptionalInt.of(i);
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Play all {@code answers} at once by walking the decision tree of a deterministic guesser:
+     * the guesser is asked once per distinct history and the answers are split by the feedback pattern of its guess,
+     * each group continuing with a {@link Guesser#fork() fork} of the guesser.
+     * Per-answer results are the same as with {@link #play(Word, Guesser)}, except that {@link Guesser#finish(long)}
+     * is not called.
+     * @param answers answers to play
+     * @param guesser fresh guesser that supports {@link Guesser#fork()}
+     * @return number of guesses for each answer (in the order of {@code answers}), empty if not solved
+     */
+    public OptionalInt[] playAll(final Word[] answers, final Guesser guesser) {
+        return playAll(answers, guesser, this.maxGuesses);
+    }
+
+    /**
+     * Like {@link #playAll(Word[], Guesser)}, but with at most {@code maxGuesses} guesses per answer.
+     */
+    public OptionalInt[] playAll(final Word[] answers, final Guesser guesser, final int maxGuesses) {
+        Objects.requireNonNull(answers);
+        Objects.requireNonNull(guesser);
+
+        final var results = new OptionalInt[answers.length];
+        Arrays.fill(results, OptionalInt.empty());
+        final var games = new int[answers.length];
+        Arrays.setAll(games, i -> i);
+        playAll(answers, games, guesser, new ArrayDeque<>(), maxGuesses, results);
+        return results;
+    }
+
+    private static void playAll(final Word[] answers, final int[] games, final Guesser guesser,
+            final ArrayDeque<Guesser.Guess> hist, final int maxGuesses, final OptionalInt[] results) {
+        final int i = hist.size() + 1;
+        final var guess = guesser.guess(hist).orElseThrow();
+        assert DICTIONARY.contains(guess) : "Guessed word '" + guess + "' is not in dictionary!";
+
+        // counting sort of the games by their feedback pattern
+        final var patterns = new int[games.length];
+        final var starts = new int[Correctness.ALL_PATTERNS.length + 1];
+        for (int k = 0; k < games.length; k++) {
+            final var answer = answers[games[k]];
+            if (answer.equals(guess)) {
+                results[games[k]] = OptionalInt.of(i);
+                patterns[k] = -1;
+            } else {
+                patterns[k] = Patterns.pattern(answer, guess);
+                starts[patterns[k] + 1] += 1;
+            }
+        }
+        if (i == maxGuesses) {
+            return;
+        }
+        for (int p = 1; p < starts.length; p++) {
+            starts[p] += starts[p - 1];
+        }
+        final var sorted = new int[starts[starts.length - 1]];
+        final var next = Arrays.copyOf(starts, starts.length - 1);
+        for (int k = 0; k < games.length; k++) {
+            if (patterns[k] >= 0) {
+                sorted[next[patterns[k]]++] = games[k];
+            }
+        }
+
+        for (int p = 0; p < Correctness.ALL_PATTERNS.length; p++) {
+            if (starts[p] == starts[p + 1]) {
+                continue;
+            }
+            final var child = guesser.fork()
+                    .orElseThrow(() -> new UnsupportedOperationException("Guesser does not support fork()"));
+            final var childHist = new ArrayDeque<>(hist);
+            childHist.addLast(new Guesser.Guess(guess, p));
+            playAll(answers, Arrays.copyOfRange(sorted, starts[p], starts[p + 1]), child, childHist, maxGuesses, results);
+        }
+    }
+
+    /**
+     * A word packed into an int with 5 bits per letter (first letter in the most significant bits),
+     * so words compare, hash and sort like their Strings but without the object overhead of the characters.
      */
-    // TODO The object overhead is a bit sad, ideally we would like to use something like a type alias for byte[] (value types when...)
-    //      that also handles HashMap comparing like e.g. for Strings (where it works), not like byte[] where Objects.equals(ba1, ba2) -> false...
-    public static class Word {
+    public static final class Word {
+
+        private static final int BITS = 5;
+        private static final int LETTER = (1 << BITS) - 1;
 
-        private final byte[] value;
+        private final int value;
 
         public Word(final String word) {
-            this.value = Objects.requireNonNull(word).getBytes();
+            this(pack(word));
+        }
+
+        public Word(final int packed) {
+            this.value = packed;
+        }
+
+        /**
+         * Pack a word of {@link #LENGTH} lower-case letters into an int.
+         * @param word word to pack
+         * @return packed representation of {@code word}
+         */
+        public static int pack(final String word) {
+            Objects.requireNonNull(word);
+            if (word.length() != LENGTH) {
+                throw new IllegalArgumentException(String.format("Word must have length %d, was: '%s'", LENGTH, word));
+            }
+            int packed = 0;
+            for (int i = 0; i < LENGTH; i++) {
+                final char c = word.charAt(i);
+                if (c < 'a' || c > 'z') {
+                    throw new IllegalArgumentException(String.format("Word must only contain letters a-z, was: '%s'", word));
+                }
+                packed = packed << BITS | (c - 'a');
+            }
+            return packed;
+        }
+
+        /**
+         * @param packed packed word
+         * @param i position
+         * @return letter at position {@code i} in the packed word, as offset from 'a'
+         */
+        public static int letterAt(final int packed, final int i) {
+            return packed >>> (BITS * (LENGTH - 1 - i)) & LETTER;
+        }
+
+        public int packed() {
+            return this.value;
         }
 
         @Override
@@ -76,21 +278,25 @@ public final class Wordle {
             if (!(o instanceof final Word word)) {
                 return false;
             }
-            return Arrays.equals(value, word.value);
+            return value == word.value;
         }
 
         @Override
         public int hashCode() {
-            return Arrays.hashCode(value);
+            return Integer.hashCode(value);
         }
 
         public byte valueAt(final int i) {
-            return this.value[i];
+            return (byte) ('a' + letterAt(this.value, i));
         }
 
         @Override
         public String toString() {
-            return new String(this.value);
+            final var chars = new char[LENGTH];
+            for (int i = 0; i < LENGTH; i++) {
+                chars[i] = (char) valueAt(i);
+            }
+            return new String(chars);
         }
     }
 
@@ -104,6 +310,94 @@ public final class Wordle {
 
         public static final Correctness[][] ALL_PATTERNS = genPatterns();
 
+        // place value of each position in a pattern index
+        private static final int[] PLACE = { 81, 27, 9, 3, 1 };
+
+        /**
+         * Allocation-free computation of the pattern of {@code guess} against {@code answer}.
+         * @param answer packed answer (see {@link Word#packed()})
+         * @param guess packed guess
+         * @return pattern index in base 3, as in {@link #idx(Correctness[])}
+         */
+        public static int pattern(final int answer, final int guess) {
+            final int green = green(answer, guess);
+            // answer positions already accounted for, by a correct or misplaced guess letter
+            int used = green;
+            int pattern = 0;
+            for (int i = 0; i < LENGTH; i++) {
+                int digit = 0;
+                if ((green & 1 << i) == 0) {
+                    final int j = unused(answer, Word.letterAt(guess, i), used);
+                    if (j >= 0) {
+                        used |= 1 << j;
+                        digit = 1;
+                    } else {
+                        digit = 2;
+                    }
+                }
+                pattern = pattern * 3 + digit;
+            }
+            return pattern;
+        }
+
+        public static int pattern(final Word answer, final Word guess) {
+            return pattern(answer.packed(), guess.packed());
+        }
+
+        /**
+         * Allocation-free check whether {@code guess} against {@code answer} produces {@code pattern}.
+         * Returns on the first position that does not match.
+         */
+        public static boolean matches(final int answer, final int guess, final int pattern) {
+            final int green = green(answer, guess);
+            for (int i = 0; i < LENGTH; i++) {
+                if (((green & 1 << i) != 0) != (digit(pattern, i) == 0)) {
+                    return false;
+                }
+            }
+            int used = green;
+            for (int i = 0; i < LENGTH; i++) {
+                if ((green & 1 << i) == 0) {
+                    final int j = unused(answer, Word.letterAt(guess, i), used);
+                    if (j >= 0) {
+                        used |= 1 << j;
+                    }
+                    if (digit(pattern, i) != (j >= 0 ? 1 : 2)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return digit (0: correct, 1: misplaced, 2: wrong) of position {@code i} in a pattern index
+         */
+        public static int digit(final int pattern, final int i) {
+            return pattern / PLACE[i] % 3;
+        }
+
+        // bitmask of the positions where answer and guess have the same letter
+        private static int green(final int answer, final int guess) {
+            int green = 0;
+            for (int i = 0; i < LENGTH; i++) {
+                if (Word.letterAt(answer, i) == Word.letterAt(guess, i)) {
+                    green |= 1 << i;
+                }
+            }
+            return green;
+        }
+
+        // first position of letter in answer which is not used yet, or -1
+        private static int unused(final int answer, final int letter, final int used) {
+            for (int j = 0; j < LENGTH; j++) {
+                if ((used & 1 << j) == 0 && Word.letterAt(answer, j) == letter) {
+                    return j;
+                }
+            }
+            return -1;
+        }
+
         static public Correctness[] compute(final Word answer, final Word guess) {
             return compute(answer, guess, null);
         }
@@ -114,38 +408,20 @@ public final class Wordle {
             } else if (correctness.length != LENGTH) {
                 throw new IllegalArgumentException(String.format("Output parameter 'correctness' must be exactly %d long, was: %d", LENGTH, correctness.length));
             }
-            Arrays.fill(correctness, WRONG);
-
-            final var misplaced = new int['z' - 'a' + 1];
-            // check correct chars
-            for (int i = 0; i < correctness.length; i++) {
-                final var a = answer.valueAt(i);
-                final var g = guess.valueAt(i);
-                if (a == g) {
-                    correctness[i] = CORRECT;
-                } else {
-                    // provisionally count as misplaced
-                    misplaced[a - 'a'] += 1;
-                }
-            }
-            // verify misplaced characters
-            for (int i = 0; i < correctness.length; i++) {
-                final int g = guess.valueAt(i);
-                if (WRONG == correctness[i] && misplaced[g - 'a'] > 0) {
-                    correctness[i] = MISPLACED;
-                    misplaced[g - 'a'] -= 1;
-                }
-            }
-
+            System.arraycopy(ALL_PATTERNS[pattern(answer, guess)], 0, correctness, 0, LENGTH);
             return correctness;
         }
 
         public static int idx(final Correctness[] mask) {
-            return Arrays.stream(mask).reduce(0, (acc, c) -> acc * 3 + switch (c) {
-                case CORRECT -> 0;
-                case MISPLACED -> 1;
-                case WRONG -> 2;
-            }, Integer::sum);
+            int idx = 0;
+            for (final var c : mask) {
+                idx = idx * 3 + switch (c) {
+                    case CORRECT -> 0;
+                    case MISPLACED -> 1;
+                    case WRONG -> 2;
+                };
+            }
+            return idx;
         }
 
         public static Correctness[] initMask() {
@@ -168,6 +444,17 @@ public final class Wordle {
             }).toArray(Correctness[]::new);
         }
 
+        /**
+         * @return shorthand of {@code pattern} (an index as in {@link #idx(Correctness[])}), as read by {@link #maskOf(String)}
+         */
+        public static String shorthand(final int pattern) {
+            final var chars = new char[LENGTH];
+            for (int i = 0; i < LENGTH; i++) {
+                chars[i] = "CMW".charAt(digit(pattern, i));
+            }
+            return new String(chars);
+        }
+
         private static Correctness[][] genPatterns() {
             return Arrays.stream(Correctness.values())
                     .flatMap((Correctness a) -> Arrays.stream(Correctness.values())
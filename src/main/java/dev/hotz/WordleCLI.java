@@ -1,116 +1,663 @@
 package dev.hotz;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.Objects;
+import java.util.OptionalInt;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.LongStream;
 
+import dev.hotz.Wordle.Correctness;
 import dev.hotz.Wordle.Word;
+import dev.hotz.alg.Adversary;
+import dev.hotz.alg.Anytime;
 import dev.hotz.alg.MostFreq;
 import dev.hotz.alg.Entropy;
+import dev.hotz.alg.FullEntropy;
+import dev.hotz.alg.DecisionTree;
+import dev.hotz.alg.Lookahead;
+import dev.hotz.alg.MultiEntropy;
+import dev.hotz.alg.Openers;
+import dev.hotz.alg.Optimal;
+import dev.hotz.alg.Solver;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
 
 @Command(name = "jordle", mixinStandardHelpOptions = true, version = "1.0",
         description = "Plays wordle!")
 class WordleCLI implements Callable<Integer> {
 
-    // TODO also improve this, generate-sources?
-    private static final Word[] GAMES = loadGames();
-
-    private static Word[] loadGames() {
-        try (final var in = new BufferedReader(new InputStreamReader(
-                Objects.requireNonNull(Wordle.class.getClassLoader().getResourceAsStream("answers.txt"))))) {
-            return in.lines()
-                    .filter(l -> !l.startsWith("#"))
-                    .map(Word::new)
-                    .toArray(Word[]::new);
-        } catch (IOException e) {
-            throw new RuntimeException("Could not load games!");
-        }
-    }
+    private static final Word[] GAMES = Wordle.answers();
 
     @CommandLine.Parameters(index = "0", arity = "0..1", description = "Number of games to run. If not present, plays all games.")
     private int maxGames = Integer.MAX_VALUE;
 
-    @Option(names = {"-a", "--algorithm"}, description = "entropy, mostfreq")
+    @Option(names = {"-a", "--algorithm"}, description = "entropy, entropy-full, lookahead, optimal, mostfreq")
     private String algorithm = "entropy";
 
     @Option(names = {"-p", "--progress"}, description = "Report avg. score during run")
     private boolean progress = false;
 
+    @Option(names = {"-t", "--threads"}, description = "Threads for candidate evaluation (default: number of processors, 1 = serial)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {"--parallel-threshold"}, description = "Min. remaining words to evaluate candidates in parallel (default: ${DEFAULT-VALUE})")
+    private int parallelThreshold = Entropy.DEFAULT_PARALLEL_THRESHOLD;
+
+    @Option(names = {"-e", "--engine"}, description = "Pattern computation of entropy, entropy-full, lookahead: matrix, scalar, vector (default: ${DEFAULT-VALUE})")
+    private String engineName = "matrix";
+
+    @Option(names = {"--top-k"}, description = "Candidates per guess of lookahead, optimal (default: ${DEFAULT-VALUE})")
+    private int topK = Lookahead.DEFAULT_TOP_K;
+
+    @Option(names = {"--boards"}, paramLabel = "<n>", description = "Boards per game, each with the next answer, solved by the same guesses (entropy only, default: ${DEFAULT-VALUE})")
+    private int boards = 1;
+
+    @Option(names = {"--max-guesses"}, paramLabel = "<n>", description = "Guesses until a game is lost (default: boards + 5)")
+    private Integer maxGuessesOption;
+
+    @Option(names = {"--deadline-ms"}, paramLabel = "<ms>", description = "Time budget per guess of entropy: score the candidates by descending count and guess the best so far when it runs out")
+    private Double deadlineMs;
+
+    @Option(names = {"--opener"}, paramLabel = "<word>", description = "First guess of entropy, entropy-full, lookahead (default: ${DEFAULT-VALUE}, see rank-openers)")
+    private String openerName = Entropy.DEFAULT_OPENER;
+
+    @Option(names = {"--answers"}, paramLabel = "<file>", description = "Stream the answers to play from a file (- for stdin) instead of answers.txt")
+    private String answersFile;
+
+    @Option(names = {"--ndjson"}, paramLabel = "<file>", description = "Write the result of each streamed game to a file (default: stdout)")
+    private Path ndjsonFile;
+
+    @Option(names = {"--shard"}, paramLabel = "<i/n>", description = "Play only the games i, i + n, ... (0 <= i < n), resuming from and writing to a partial result file")
+    private String shardSpec;
+
+    @Option(names = {"--shard-file"}, paramLabel = "<file>", description = "Partial result file of --shard (default: shard-<i>-of-<n>.bin)")
+    private Path shardFile;
+
+    @Option(names = {"--metrics"}, paramLabel = "<file>", arity = "0..1", fallbackValue = "-",
+            description = "Write a JSON summary of the per-turn latency, remaining words, candidates and allocation to a file (default: stdout)")
+    private String metricsFile;
+
+    @Option(names = {"--tree-file"}, description = "Decision tree of optimal to replay, computed and saved if missing (default: in the cache directory)")
+    private Path treeFile;
+
+    @Option(names = {"--tree"}, description = "Evaluate all games as one shared decision tree, asking the guesser once per distinct history")
+    private boolean tree = false;
+
+    @Option(names = {"-j", "--jobs"}, description = "Games to play concurrently (default: ${DEFAULT-VALUE})")
+    private int jobs = 1;
+
+    @Option(names = {"--book"}, description = "Consult and fill the persistent opening book of the algorithm")
+    private boolean useBook = false;
+
+    @Option(names = {"--book-size"}, description = "Max. number of book entries beyond the first guesses (default: ${DEFAULT-VALUE})")
+    private int bookSize = OpeningBook.DEFAULT_MAX_SIZE;
+
+    @Spec
+    private CommandSpec spec;
+
+    private static final long PROGRESS_INTERVAL_MS = 100;
+
+    private ForkJoinPool pool;
+
+    private PatternEngine engine;
+
+    private int maxGuesses;
+
+    private Word opener;
+
+    // time per guess of the anytime variant of entropy, if any
+    private Anytime.Budget budget;
+
+    private OpeningBook book;
+
+    // forked per game, so that all games share its memo
+    private Lookahead lookahead;
+
+    private DecisionTree optimal;
+
+    private static final long CHECKPOINT_INTERVAL_MS = 60_000;
+
+    private static final int WARMUP_GAMES = 50;
+
+    private void setup() {
+        if (threads < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Number of threads must be positive, was: " + threads);
+        }
+        if (jobs < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Number of jobs must be positive, was: " + jobs);
+        }
+        if (topK < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Top k must be positive, was: " + topK);
+        }
+        if (boards < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Number of boards must be positive, was: " + boards);
+        }
+        if (boards > 1 && (!algorithm.equals("entropy") || tree || answersFile != null || useBook)) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--boards is only supported by entropy, without --tree, --answers and --book");
+        }
+        if ((shardSpec != null || shardFile != null) && answersFile != null) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--shard and --shard-file are not supported with --answers");
+        }
+        if (deadlineMs != null) {
+            if (!algorithm.equals("entropy") || boards > 1) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "--deadline-ms is only supported by entropy on one board");
+            }
+            // its guesses depend on the budget, so they must not end up in the files of the exact algorithm
+            if (useBook || shardSpec != null) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "--deadline-ms is not supported with --book and --shard");
+            }
+            try {
+                budget = new Anytime.Budget(deadlineMs);
+            } catch (IllegalArgumentException e) {
+                throw new CommandLine.ParameterException(spec.commandLine(), e.getMessage());
+            }
+        }
+        maxGuesses = maxGuesses();
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        engine = switch (engineName) {
+            case "matrix" -> PatternEngine.matrix();
+            case "scalar" -> PatternEngine.scalar();
+            case "vector" -> PatternEngine.vector().orElseGet(() -> {
+                System.err.println("Vector API not available (run with --add-modules jdk.incubator.vector), using scalar engine");
+                return PatternEngine.scalar();
+            });
+            default -> throw new CommandLine.ParameterException(spec.commandLine(), "Unknown engine: " + engineName);
+        };
+        try {
+            opener = new Word(openerName);
+        } catch (IllegalArgumentException e) {
+            throw new CommandLine.ParameterException(spec.commandLine(), e.getMessage().strip());
+        }
+        if (!Wordle.DICTIONARY.contains(opener)) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Opener is not in the dictionary: " + openerName);
+        }
+        if (!hasOpener() && !openerName.equals(Entropy.DEFAULT_OPENER)) {
+            throw new CommandLine.ParameterException(spec.commandLine(), algorithm + " does not take an opener");
+        }
+        if (algorithm.equals("lookahead")) {
+            lookahead = new Lookahead(pool, topK, engine, opener);
+        }
+        if (algorithm.equals("optimal")) {
+            try {
+                optimal = optimalTree();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not compute optimal decision tree", e);
+            }
+        }
+        if (useBook) {
+            book = OpeningBook.load(algorithmKey(), OpeningBook.DEFAULT_PINNED_DEPTH, bookSize);
+        }
+    }
+
+    /**
+     * @return max. number of guesses per game, by default 6 for one board and one more per further board
+     */
+    private int maxGuesses() {
+        final int max = maxGuessesOption != null ? maxGuessesOption : Wordle.MAX_GUESSES + boards - 1;
+        if (max < 1 || max > Byte.MAX_VALUE) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Max. guesses must be between 1 and 127, was: " + max);
+        }
+        return max;
+    }
+
+    /**
+     * @return name and configuration of the algorithm, for files of its results
+     */
+    private String algorithmKey() {
+        var key = algorithm.matches("lookahead|optimal") && topK != Lookahead.DEFAULT_TOP_K ? algorithm + "-k" + topK : algorithm;
+        key = hasOpener() && !openerName.equals(Entropy.DEFAULT_OPENER) ? key + "-" + openerName : key;
+        key = boards > 1 ? key + "-b" + boards : key;
+        return maxGuesses != Wordle.MAX_GUESSES + boards - 1 ? key + "-g" + maxGuesses : key;
+    }
+
+    private boolean hasOpener() {
+        return algorithm.matches("entropy|entropy-full|lookahead");
+    }
+
     @Override
-    public Integer call() {
-        final var w = new Wordle();
-        int score = 0;
-        int solved = 0;
+    public Integer call() throws IOException {
+        setup();
+        if (answersFile != null) {
+            return stream();
+        }
+        final var w = new Wordle(maxGuesses);
+        // with several boards, game g has the answers g * boards, ..., (g + 1) * boards - 1
+        final int max = Math.min(maxGames, GAMES.length / boards);
+        final var results = new Results(maxGuesses);
 
-        final List<AtomicInteger> histogram = new ArrayList<>();
-        final int max = Math.min(maxGames, GAMES.length);
-        for (int i = 0; i < max; i++) {
-            final var r = w.play(GAMES[i], guesser(algorithm));
-            if (r.isPresent()) {
-                final int s = r.getAsInt();
-                score += s;
-                solved += 1;
-                if (s >= histogram.size()) {
-                    IntStream.range(0, s - histogram.size() + 1).mapToObj(_unused -> new AtomicInteger()).forEachOrdered(histogram::add);
+        final Shard shard;
+        final Path shardPath;
+        final int[] todo;
+        if (shardSpec != null) {
+            try {
+                shard = Shard.of(shardSpec, algorithmKey(), maxGuesses, max);
+                shardPath = shardFile != null ? shardFile : Path.of("shard-%s-of-%s.bin".formatted(shardSpec.split("/")[0], shardSpec.split("/")[1]));
+                final int resumed = shard.resume(shardPath);
+                if (resumed > 0) {
+                    System.err.printf("Resuming shard %s from %s, %d games played%n", shard, shardPath, resumed);
                 }
-                histogram.get(s).incrementAndGet();
+            } catch (IllegalArgumentException e) {
+                throw new CommandLine.ParameterException(spec.commandLine(), e.getMessage());
+            }
+            shard.replay(results);
+            todo = shard.remaining();
+        } else {
+            shard = null;
+            shardPath = null;
+            todo = IntStream.range(0, max).toArray();
+        }
+        final int total = shard != null ? shard.size() : max;
+
+        // games are independent, so workers just claim the next unplayed one
+        final var next = new AtomicInteger();
+        final var workers = Executors.newFixedThreadPool(jobs);
+        final var reporter = progress || shard != null ? Executors.newSingleThreadScheduledExecutor() : null;
+        if (progress) {
+            reporter.scheduleAtFixedRate(() -> results.printProgress(System.err, total), 0, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        // checkpoint periodically and when interrupted
+        final Runnable checkpoint = () -> {
+            try {
+                shard.save(shardPath);
+            } catch (IOException e) {
+                System.err.printf("Could not checkpoint shard to %s: %s%n", shardPath, e.getMessage());
+            }
+        };
+        final var onExit = new Thread(checkpoint);
+        if (shard != null) {
+            reporter.scheduleAtFixedRate(checkpoint, CHECKPOINT_INTERVAL_MS, CHECKPOINT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            Runtime.getRuntime().addShutdownHook(onExit);
+        }
+        try {
+            if (tree) {
+                final var played = w.playAll(Arrays.stream(todo).mapToObj(g -> GAMES[g]).toArray(Word[]::new), guesser(algorithm));
+                for (int k = 0; k < todo.length; k++) {
+                    record(results, shard, todo[k], played[k]);
+                }
+            } else {
+                final var games = IntStream.range(0, jobs).mapToObj(_unused -> workers.submit(() -> {
+                    for (int k = next.getAndIncrement(); k < todo.length; k = next.getAndIncrement()) {
+                        record(results, shard, todo[k], play(w, todo[k]));
+                    }
+                    return null;
+                })).toList();
+                for (final var game : games) {
+                    game.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while playing games!", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Could not play games!", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            if (reporter != null) {
+                reporter.shutdownNow();
+            }
+        }
+        if (progress) {
+            results.printProgress(System.err, total);
+        }
+        System.err.println();
+
+        results.printReport(System.err, total);
+        if (shard != null) {
+            Runtime.getRuntime().removeShutdownHook(onExit);
+            shard.save(shardPath);
+            System.err.printf("Shard %s written to %s%n", shard, shardPath);
+        }
+        if (book != null) {
+            printBookStats();
+            book.save();
+        }
+        printBudget();
+        printMetrics();
+
+        return 0;
+    }
+
+    private OptionalInt play(final Wordle w, final int game) {
+        if (boards == 1) {
+            return w.play(GAMES[game], guesser(algorithm));
+        }
+        return w.playBoards(Arrays.copyOfRange(GAMES, game * boards, (game + 1) * boards),
+                Metrics.instrument(algorithm, new MultiEntropy(pool, parallelThreshold, engine, opener)));
+    }
+
+    private static void record(final Results results, final Shard shard, final int game, final OptionalInt result) {
+        results.record(result);
+        if (shard != null) {
+            shard.record(game, result);
+        }
+    }
+
+    /**
+     * Play the answers of {@link #answersFile} as they are read, writing NDJSON.
+     */
+    private int stream() throws IOException {
+        if (tree) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--tree can not be combined with --answers");
+        }
+        final var results = new Results(maxGuesses);
+        final var reporter = progress ? Executors.newSingleThreadScheduledExecutor() : null;
+        if (reporter != null) {
+            reporter.scheduleAtFixedRate(() -> results.printRunning(System.err), 0, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        final Writer out = ndjsonFile != null ? Files.newBufferedWriter(ndjsonFile) : new BufferedWriter(new OutputStreamWriter(System.out));
+        try (final var in = answersFile.equals("-") ? new BufferedReader(new InputStreamReader(System.in)) : Files.newBufferedReader(Path.of(answersFile))) {
+            new Batch(() -> guesser(algorithm), new Wordle(maxGuesses), jobs, results, out).run(in, maxGames);
+        } finally {
+            if (reporter != null) {
+                reporter.shutdownNow();
             }
-            if (progress) {
-                final int curr = i + 1;
-                int percent = (int) (1.0 * curr * 100 / max);
-                final String string = "\r"
-                        + String.format(Locale.US, "avg. score: %.3f ", 1.0 * score / solved)
-                        + " ".repeat(percent == 0 ? 2 : 2 - (int) (Math.log10(percent)))
-                        + " %d%% [".formatted(percent) + "=".repeat((int) (percent * .42)) + '>' + " ".repeat(
-                        (int) ((100 - percent) * .42)) + ']'
-                        + " ".repeat((int) (((int) (Math.log10(max)) - (int) (Math.log10(curr))) * .42))
-                        + " %d/%d".formatted(curr, max);
-                System.err.print(string);
+            if (ndjsonFile != null) {
+                out.close();
+            } else {
+                out.flush();
             }
         }
+        if (progress) {
+            results.printRunning(System.err);
+        }
         System.err.println();
 
-        final var sum = histogram.stream().mapToInt(AtomicInteger::intValue).sum();
-        Util.zip(IntStream.range(0, Integer.MAX_VALUE).boxed(), histogram.stream().map(AtomicInteger::get), Util.Pair::new)
-                .skip(1)
-                .forEachOrdered(p -> {
-                    final var s = p.left();
-                    final var c = p.right();
-                    final var frac = 1.0 * c / sum;
-                    final long hash = Math.round(30 * frac);
-                    final long white = Math.round(30 * (1.0 - frac));
-                    System.err.printf("%d: %s%s (%d)%n", s,
-                            LongStream.range(0, hash).mapToObj(v -> "#").collect(Collectors.joining()),
-                            LongStream.range(0, white).mapToObj(v -> " ").collect(Collectors.joining()), c);
-        });
-        System.err.printf(Locale.US, "avg score: %f%n", 1.0 * score / solved);
-        System.err.printf(Locale.US, "solved: %.2f%%%n", 1.0 * solved / max * 100);
+        results.printReport(System.err, results.played());
+        if (book != null) {
+            printBookStats();
+            book.save();
+        }
+        printBudget();
+        printMetrics();
+        return 0;
+    }
 
+    @Command(name = "merge", mixinStandardHelpOptions = true,
+            description = "Print the report of a run from the partial result files of all its shards")
+    int merge(@CommandLine.Parameters(paramLabel = "<file>", arity = "1..*", description = "Partial result files") final List<Path> files) throws IOException {
+        try {
+            Shard.merge(files, System.err);
+        } catch (IOException e) {
+            throw new CommandLine.ParameterException(spec.commandLine(), e.getMessage());
+        }
         return 0;
     }
 
+    @Command(name = "precompute-book", mixinStandardHelpOptions = true,
+            description = "Fill the opening book with the guesses for all answers up to a depth")
+    int precomputeBook(@Option(names = {"--depth"}, paramLabel = "<depth>", defaultValue = "" + OpeningBook.DEFAULT_PINNED_DEPTH,
+            description = "Number of guesses to precompute (default: ${DEFAULT-VALUE})") final int depth) throws IOException {
+        useBook = true;
+        setup();
+        new Wordle(maxGuesses).playAll(GAMES, guesser(algorithm), depth);
+        printBookStats();
+        book.save();
+        return 0;
+    }
+
+    @Command(name = "budget-curve", mixinStandardHelpOptions = true,
+            description = "Play the games with the anytime variant of entropy for several time budgets per guess and print how the avg. score changes")
+    int budgetCurve(@Option(names = {"--budgets"}, paramLabel = "<ms>", split = ",", defaultValue = "0.05,0.1,0.2,0.5,1,2,5,Infinity",
+            description = "Time budgets per guess in ms (default: ${DEFAULT-VALUE})") final double[] budgets) {
+        if (!algorithm.equals("entropy")) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "budget-curve is only supported by entropy");
+        }
+        setup();
+        final int max = Math.min(maxGames, GAMES.length);
+        budget = new Anytime.Budget(Double.POSITIVE_INFINITY);
+        warmUp();
+        final var w = new Wordle(maxGuesses);
+        System.out.println("budget_ms  avg_score  solved   scored  out_of_time  run_ms");
+        for (final double ms : budgets) {
+            try {
+                budget = new Anytime.Budget(ms);
+            } catch (IllegalArgumentException e) {
+                throw new CommandLine.ParameterException(spec.commandLine(), e.getMessage());
+            }
+            final var results = new Results(maxGuesses);
+            final long start = System.nanoTime();
+            for (int g = 0; g < max; g++) {
+                results.record(w.play(GAMES[g], guesser(algorithm)));
+            }
+            final long solved = results.solved();
+            System.out.printf(Locale.US, "%9s  %9s  %6.2f%%  %5.1f%%  %11s  %6d%n",
+                    Double.isInfinite(ms) ? "none" : ms, solved == 0 ? "-" : String.format(Locale.US, "%.6f", 1.0 * results.score() / solved),
+                    100.0 * solved / max, 100 * budget.evaluated(),
+                    budget.expired() + "/" + budget.guesses(), (System.nanoTime() - start) / 1_000_000);
+        }
+        return 0;
+    }
+
+    @Command(name = "adversary", mixinStandardHelpOptions = true,
+            description = "Worst case of the algorithm: the most guesses any feedback can force it into, with the answers that take them, and the game against an adversary that always keeps the most answers (Absurdle)")
+    int adversary(@Option(names = {"--dictionary"},
+            description = "Any dictionary word may be the answer, not only those of answers.txt") final boolean dictionary) {
+        setup();
+        if (budget != null || boards > 1 || useBook) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "adversary is not supported with --deadline-ms, --boards and --book");
+        }
+        final int[] answers = dictionary
+                ? IntStream.range(0, Wordle.DICTIONARY.size()).toArray()
+                : Arrays.stream(GAMES, 0, Math.min(maxGames, GAMES.length)).mapToInt(Wordle.DICTIONARY::id).sorted().distinct().toArray();
+        final var adversary = new Adversary(pool, answers, guesser(algorithm));
+        final long start = System.nanoTime();
+        final var worst = adversary.worst();
+        final long ms = (System.nanoTime() - start) / 1_000_000;
+
+        final var err = System.err;
+        err.printf("worst case: %s guesses for %d of %d answers%s%n",
+                worst.guesses() > Adversary.LIMIT ? "more than " + Adversary.LIMIT : worst.guesses(), worst.answers().length, answers.length,
+                worst.guesses() > maxGuesses ? " (lost with " + maxGuesses + " guesses)" : "");
+        err.println("  " + Arrays.stream(worst.answers()).limit(20).mapToObj(a -> Wordle.DICTIONARY.toWord(a).toString())
+                .collect(Collectors.joining(" ")) + (worst.answers().length > 20 ? " ..." : ""));
+        err.println("  " + line(adversary.path(worst.answers()[0])));
+        err.println("absurdle: " + line(adversary.greedy()));
+        err.printf("searched %d states in %d ms, replayed %d guesses%n", adversary.states(), ms, adversary.replayed());
+        return 0;
+    }
+
+    /**
+     * @return the guesses with their feedback, e.g. {@code tares WMWWC, ...}
+     */
+    private static String line(final List<Guesser.Guess> guesses) {
+        return guesses.stream().map(g -> g.word() + " " + Correctness.shorthand(g.pattern())).collect(Collectors.joining(", "));
+    }
+
+    @Command(name = "rank-openers", mixinStandardHelpOptions = true,
+            description = "Rank all dictionary words as first guess by entropy and the best by the avg. score of full games with the algorithm, as CSV")
+    int rankOpeners(@Option(names = {"--top"}, paramLabel = "<n>", defaultValue = "100",
+                    description = "Openers by entropy to play full games with (default: ${DEFAULT-VALUE})") final int top,
+            @Option(names = {"--output"}, paramLabel = "<file>", defaultValue = "openers.csv",
+                    description = "CSV file to write (default: ${DEFAULT-VALUE})") final Path output) throws IOException {
+        setup();
+        if (!hasOpener()) {
+            throw new CommandLine.ParameterException(spec.commandLine(), algorithm + " does not take an opener");
+        }
+        if (top < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Top must not be negative, was: " + top);
+        }
+        final var answers = Arrays.copyOf(GAMES, Math.min(maxGames, GAMES.length));
+        final var openers = new Openers(pool, engine, maxGuesses);
+        final var reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> openers.printProgress(System.err), 0, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        final long start = System.nanoTime();
+        final List<Openers.Opener> ranked;
+        try {
+            // the openers are played in parallel, so each game tree is played serially
+            ranked = openers.rank(answers, o -> switch (algorithm) {
+                case "entropy" -> new Entropy(null, Integer.MAX_VALUE, engine, o);
+                case "entropy-full" -> new FullEntropy(engine, o);
+                case "lookahead" -> new Lookahead(null, topK, engine, o);
+                default -> throw new IllegalStateException("No opener for " + algorithm);
+            }, top);
+        } finally {
+            reporter.shutdownNow();
+        }
+        openers.printProgress(System.err);
+        System.err.println();
+        try (final var out = Files.newBufferedWriter(output)) {
+            Openers.writeCsv(ranked, out);
+        }
+        final var best = ranked.get(0);
+        System.err.printf(Locale.US, "best opener: %s (entropy %.4f, avg score %.6f), ranked in %d ms, written to %s%n",
+                Wordle.DICTIONARY.toWord(best.id()), best.entropy(), best.score(), (System.nanoTime() - start) / 1_000_000, output);
+        return 0;
+    }
+
+    /**
+     * Load the decision tree for all answers, or solve it (resuming from and checkpointing to the cache directory)
+     * and save it.
+     */
+    private DecisionTree optimalTree() throws IOException {
+        final var answers = Arrays.stream(GAMES).mapToInt(Wordle.DICTIONARY::id).sorted().toArray();
+        // trees for other than the default max. number of guesses are kept apart
+        final var suffix = maxGuesses != Wordle.MAX_GUESSES ? "-g" + maxGuesses : "";
+        final var file = treeFile != null ? treeFile : Util.cacheDir().resolve("tree-optimal-k%d%s.bin".formatted(topK, suffix));
+        final var known = DecisionTree.load(file, answers);
+        if (known.isPresent()) {
+            return known.get();
+        }
+        final var checkpoint = Util.cacheDir().resolve("optimal-k%d%s.ckpt".formatted(topK, suffix));
+        final long start = System.nanoTime();
+        final var tree = new Solver(pool, topK, maxGuesses, checkpoint, CHECKPOINT_INTERVAL_MS).solve(answers);
+        System.err.printf("optimal: avg score %.6f over %d answers, solved in %d ms%n",
+                1.0 * tree.cost() / answers.length, answers.length, (System.nanoTime() - start) / 1_000_000);
+        tree.save(file);
+        Files.deleteIfExists(checkpoint);
+        return tree;
+    }
+
+    @Command(name = "serve", mixinStandardHelpOptions = true,
+            description = "Answer requests of the line protocol (history of guesses and masks, e.g. 'tares WWMWC') with the next guess")
+    int serve(@Option(names = {"--port"}, paramLabel = "<port>",
+            description = "Local port to listen on (default: stdin and stdout)") final Integer port) throws IOException {
+        setup();
+        final var server = new Server(() -> guesser(algorithm));
+        warmUp();
+        if (port == null) {
+            server.serve(new BufferedReader(new InputStreamReader(System.in)), new OutputStreamWriter(System.out));
+        } else {
+            final var sessions = Executors.newCachedThreadPool();
+            try (final var socket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+                System.err.printf("Listening on %s%n", socket.getLocalSocketAddress());
+                server.listen(socket, sessions);
+            } finally {
+                sessions.shutdownNow();
+            }
+        }
+        if (book != null) {
+            book.save();
+        }
+        return 0;
+    }
+
+    @Command(name = "load-test", mixinStandardHelpOptions = true,
+            description = "Play games against a server from concurrent sessions and report the latency percentiles")
+    int loadTest(@Option(names = {"--port"}, paramLabel = "<port>",
+                    description = "Local port of the server (default: start one in this process)") final Integer port,
+            @Option(names = {"--sessions"}, paramLabel = "<sessions>", defaultValue = "8",
+                    description = "Concurrent sessions (default: ${DEFAULT-VALUE})") final int sessions) throws IOException {
+        final var games = Arrays.copyOf(GAMES, Math.min(maxGames, GAMES.length));
+        if (sessions < 1 || sessions > games.length) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Sessions must be between 1 and the number of games, was: " + sessions);
+        }
+        if (port != null) {
+            new LoadGenerator(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), sessions, maxGuesses()).run(games, System.out);
+            return 0;
+        }
+
+        setup();
+        final var server = new Server(() -> guesser(algorithm));
+        warmUp();
+        final var workers = Executors.newCachedThreadPool();
+        try (final var socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            workers.execute(() -> {
+                try {
+                    server.listen(socket, workers);
+                } catch (IOException e) {
+                    System.err.println("Server failed: " + e.getMessage());
+                }
+            });
+            new LoadGenerator((InetSocketAddress) socket.getLocalSocketAddress(), sessions, maxGuesses).run(games, System.out);
+        } finally {
+            workers.shutdownNow();
+        }
+        if (book != null) {
+            printBookStats();
+            book.save();
+        }
+        printMetrics();
+        return 0;
+    }
+
+    /**
+     * Play a few games, so that the first requests are not served by the interpreter.
+     */
+    private void warmUp() {
+        final var w = new Wordle(maxGuesses);
+        for (int i = 0; i < Math.min(WARMUP_GAMES, GAMES.length); i++) {
+            w.play(GAMES[GAMES.length - 1 - i], guesser(algorithm));
+        }
+    }
+
+    private void printMetrics() throws IOException {
+        if (metricsFile == null) {
+            return;
+        }
+        if (metricsFile.equals("-")) {
+            System.out.print(Metrics.toJson());
+        } else {
+            Files.writeString(Path.of(metricsFile), Metrics.toJson());
+        }
+    }
+
+    private void printBudget() {
+        if (budget != null) {
+            System.err.printf(Locale.US, "anytime: scored %.1f%% of the candidates, %d of %d guesses ran out of time%n",
+                    100 * budget.evaluated(), budget.expired(), budget.guesses());
+        }
+    }
+
+    private void printBookStats() {
+        System.err.printf("book: %d hits, %d misses, %d entries%n", book.hits(), book.misses(), book.size());
+    }
+
     public static void main(String... args) {
         int exitCode = new CommandLine(new WordleCLI()).execute(args);
         System.exit(exitCode);
     }
 
-    private static Guesser guesser(final String name) {
-        return switch (name) {
-            case "entropy" -> new Entropy();
+    private Guesser guesser(final String name) {
+        final var guesser = switch (name) {
+            case "entropy" -> budget != null ? new Anytime(engine, opener, budget) : new Entropy(pool, parallelThreshold, engine, opener);
+            case "entropy-full" -> new FullEntropy(engine, opener);
+            case "lookahead" -> lookahead.fork().orElseThrow();
+            case "optimal" -> new Optimal(optimal, () -> new FullEntropy(engine, opener));
             case "mostfreq" -> new MostFreq();
             default -> throw new IllegalArgumentException("Unknown guesser: " + name);
         };
+        return Metrics.instrument(name, book != null ? book.wrap(guesser) : guesser);
     }
 }
@@ -0,0 +1,277 @@
+package dev.hotz.alg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import dev.hotz.Guesser;
+import dev.hotz.Guesser.Guess;
+import dev.hotz.Patterns;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Correctness;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Worst case of a deterministic guesser: instead of fixing the answer, an adversary picks the feedback to every guess,
+ * as long as some of the answers are consistent with all feedback so far.
+ * <p>
+ * {@link #greedy()} plays the Absurdle adversary, which always keeps the largest set of answers. {@link #worst()}
+ * searches all feedbacks for the most guesses the guesser can be forced into and the answers that take them: the
+ * answers are split by the feedback to each guess as in {@link Wordle#playAll(Word[], Guesser)}, and the split sets
+ * of large sets are searched in parallel on the pool, if any, each with a {@link Guesser#fork() fork} of the guesser.
+ * <p>
+ * The search reaches every state once. Its guesses are kept in a replay cache by the answers and turn of the state,
+ * which tell the histories of the guesser apart (the turn only for a guess that splits nothing), so the greedy line
+ * and the {@link #path(int) path} to an answer replay the guesses of the search instead of asking the guesser again.
+ */
+public final class Adversary {
+
+    // guesses after which a guesser is taken as not converging, e.g. as it guesses words that split nothing
+    public static final int LIMIT = 32;
+    // below this many answers the split sets are searched serially
+    private static final int PARALLEL_THRESHOLD = 64;
+    // pattern index of all CORRECT
+    private static final int SOLVED = 0;
+
+    private final ForkJoinPool pool;
+    private final int[] answers;
+    private final Guesser guesser;
+
+    // guess of every searched state
+    private final Map<Key, Integer> replay = new ConcurrentHashMap<>();
+    private final LongAdder replayed = new LongAdder();
+
+    /**
+     * @param pool pool to search on, or {@code null} to search serially
+     * @param answers sorted dictionary ids of the possible answers
+     * @param guesser fresh, deterministic guesser that supports {@link Guesser#fork()}, which is only forked
+     */
+    public Adversary(final ForkJoinPool pool, final int[] answers, final Guesser guesser) {
+        if (answers.length == 0) {
+            throw new IllegalArgumentException("No answers");
+        }
+        this.pool = pool;
+        this.answers = answers.clone();
+        this.guesser = Objects.requireNonNull(guesser);
+    }
+
+    /**
+     * @return most guesses the guesser can be forced into, with the answers that take them
+     */
+    public Outcome worst() {
+        final var task = ForkJoinTask.adapt(() -> search(fork(this.guesser), this.answers, new ArrayDeque<>()));
+        return this.pool != null ? this.pool.invoke(task) : task.invoke();
+    }
+
+    /**
+     * Play against the adversary that always gives the feedback keeping the most answers (on equal sizes the one with
+     * the higher pattern index, i.e. less correct letters).
+     * @return guesses with their feedback, the last one all correct if the guesser found the answer within {@link #LIMIT}
+     */
+    public List<Guess> greedy() {
+        return walk(-1);
+    }
+
+    /**
+     * @param answer dictionary id of one of the answers
+     * @return guesses with their feedback until the guesser finds {@code answer}, or gives up
+     */
+    public List<Guess> path(final int answer) {
+        if (Arrays.binarySearch(this.answers, answer) < 0) {
+            throw new IllegalArgumentException("Not one of the answers: " + Wordle.DICTIONARY.toWord(answer));
+        }
+        return walk(answer);
+    }
+
+    /**
+     * @return number of states searched so far
+     */
+    public int states() {
+        return this.replay.size();
+    }
+
+    /**
+     * @return number of guesses the greedy line and paths replayed from the search instead of asking the guesser
+     */
+    public long replayed() {
+        return this.replayed.sum();
+    }
+
+    /**
+     * @param history feedback so far, for a set of answers consistent with it
+     * @param set sorted dictionary ids of these answers
+     */
+    private Outcome search(final Guesser guesser, final int[] set, final ArrayDeque<Guess> history) {
+        final int turn = history.size() + 1;
+        final int guess = guesser.guess(history).map(Wordle.DICTIONARY::id).orElse(-1);
+        this.replay.put(new Key(set, turn), guess);
+        final Outcome outcome;
+        if (guess < 0) {
+            // the guesser gives up
+            outcome = new Outcome(guess, LIMIT + 1, set);
+        } else {
+            final var split = split(guess, set);
+            final var found = new Outcome(guess, split[SOLVED].length > 0 ? turn : 0, split[SOLVED]);
+            if (turn == LIMIT) {
+                final var left = Arrays.stream(set).filter(a -> a != guess).toArray();
+                outcome = left.length > 0 ? new Outcome(guess, LIMIT + 1, left) : found;
+            } else {
+                final var word = Wordle.DICTIONARY.toWord(guess);
+                final var tasks = new ArrayList<SearchTask>();
+                for (int p = 0; p < split.length; p++) {
+                    if (p != SOLVED && split[p].length > 0) {
+                        final var childHistory = new ArrayDeque<>(history);
+                        childHistory.addLast(new Guess(word, p));
+                        tasks.add(new SearchTask(fork(guesser), split[p], childHistory));
+                    }
+                }
+                final var outcomes = new ArrayList<Outcome>(tasks.size() + 1);
+                outcomes.add(found);
+                if (this.pool != null && set.length >= PARALLEL_THRESHOLD) {
+                    ForkJoinTask.invokeAll(tasks).forEach(t -> outcomes.add(t.join()));
+                } else {
+                    tasks.forEach(t -> outcomes.add(t.compute()));
+                }
+                outcome = worst(guess, outcomes);
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * @return the most guesses of {@code outcomes} with the answers of all that take them, for a state guessing {@code guess}
+     */
+    private static Outcome worst(final int guess, final List<Outcome> outcomes) {
+        int guesses = 0;
+        for (final var o : outcomes) {
+            guesses = Math.max(guesses, o.guesses());
+        }
+        final int max = guesses;
+        final var answers = outcomes.stream()
+                .filter(o -> o.guesses() == max)
+                .flatMapToInt(o -> Arrays.stream(o.answers()))
+                .sorted()
+                .toArray();
+        return new Outcome(guess, max, answers);
+    }
+
+    /**
+     * Play the feedback to {@code answer}, or of the greedy adversary for {@code -1}, replaying the guesses of the
+     * search where it has been before.
+     */
+    private List<Guess> walk(final int answer) {
+        final var guesser = fork(this.guesser);
+        final var history = new ArrayDeque<Guess>();
+        var set = this.answers;
+        while (history.size() < LIMIT) {
+            final var known = this.replay.get(new Key(set, history.size() + 1));
+            if (known != null) {
+                this.replayed.increment();
+            }
+            final int guess = known != null ? known : guesser.guess(history).map(Wordle.DICTIONARY::id).orElse(-1);
+            if (guess < 0) {
+                break;
+            }
+            final var word = Wordle.DICTIONARY.toWord(guess);
+            if (guess == answer || set.length == 1 && set[0] == guess) {
+                history.addLast(new Guess(word, SOLVED));
+                break;
+            }
+            final var split = split(guess, set);
+            int pattern = answer >= 0 ? Patterns.get(guess, answer) : -1;
+            for (int p = split.length - 1; answer < 0 && p > SOLVED; p--) {
+                if (pattern < 0 || split[p].length > split[pattern].length) {
+                    pattern = p;
+                }
+            }
+            history.addLast(new Guess(word, pattern));
+            set = split[pattern];
+        }
+        return List.copyOf(history);
+    }
+
+    /**
+     * @return the sorted ids of {@code set} per feedback pattern to {@code guess}
+     */
+    private static int[][] split(final int guess, final int[] set) {
+        // counting sort by pattern
+        final var patterns = new int[set.length];
+        final var sizes = new int[Correctness.ALL_PATTERNS.length];
+        for (int k = 0; k < set.length; k++) {
+            patterns[k] = Patterns.get(guess, set[k]);
+            sizes[patterns[k]]++;
+        }
+        final var split = new int[sizes.length][];
+        for (int p = 0; p < sizes.length; p++) {
+            split[p] = new int[sizes[p]];
+            sizes[p] = 0;
+        }
+        for (int k = 0; k < set.length; k++) {
+            split[patterns[k]][sizes[patterns[k]]++] = set[k];
+        }
+        return split;
+    }
+
+    private static Guesser fork(final Guesser guesser) {
+        return guesser.fork().orElseThrow(() -> new UnsupportedOperationException("Guesser does not support fork()"));
+    }
+
+    private final class SearchTask extends RecursiveTask<Outcome> {
+
+        private final Guesser guesser;
+        private final int[] set;
+        private final ArrayDeque<Guess> history;
+
+        private SearchTask(final Guesser guesser, final int[] set, final ArrayDeque<Guess> history) {
+            this.guesser = guesser;
+            this.set = set;
+            this.history = history;
+        }
+
+        @Override
+        protected Outcome compute() {
+            return search(this.guesser, this.set, this.history);
+        }
+    }
+
+    /**
+     * @param guess dictionary id of the guess in the state, {@code -1} if the guesser gave up
+     * @param guesses most guesses of the answers of the state, {@link #LIMIT} + 1 if not all are found within the limit
+     *                (or the guesser gave up), 0 if there are none
+     * @param answers sorted dictionary ids of the answers that take them
+     */
+    public record Outcome(int guess, int guesses, int[] answers) {
+    }
+
+    private static final class Key {
+
+        // sorted dictionary ids
+        private final int[] set;
+        private final int turn;
+        private final int hash;
+
+        private Key(final int[] set, final int turn) {
+            this.set = Objects.requireNonNull(set);
+            this.turn = turn;
+            this.hash = 31 * Arrays.hashCode(set) + turn;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || o instanceof final Key key && this.turn == key.turn && Arrays.equals(this.set, key.set);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
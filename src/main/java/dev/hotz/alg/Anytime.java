@@ -0,0 +1,170 @@
+package dev.hotz.alg;
+
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import dev.hotz.Bits;
+import dev.hotz.Columns;
+import dev.hotz.Guesser;
+import dev.hotz.Metrics;
+import dev.hotz.PatternEngine;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Anytime variant of {@link Entropy} for a latency budget: the remaining candidates are scored by descending count,
+ * and the best so far is guessed when the {@link Budget} of the guess runs out.
+ * <p>
+ * The score of a candidate is its probability times the entropy of its feedback, and the entropy is at most
+ * {@code min(log2(243), entropy of the answer)}, so once the probability times that cap falls below the best score
+ * no later candidate can win and the search is finished. Without deadline the guesses are the same as those of
+ * {@link Entropy} (on equal scores the higher id wins, as in its scan in id order).
+ */
+public class Anytime implements Guesser {
+
+    private static final double LN2 = Math.log(2);
+    // scores are computed differently from their bound: only stop if the bound is below by more than rounding
+    private static final double EPSILON = 1e-9;
+
+    // bitset over the dictionary ids of the remaining words
+    private final long[] remaining;
+    // number of history entries already filtered by
+    private int seen;
+
+    private final PatternEngine engine;
+    private final Word opener;
+    private final Budget budget;
+
+    /**
+     * @param engine computes the patterns of a candidate against the remaining words
+     * @param opener first guess
+     * @param budget time per guess, shared by all guessers of a run for the statistics
+     */
+    public Anytime(final PatternEngine engine, final Word opener, final Budget budget) {
+        this.engine = Objects.requireNonNull(engine);
+        this.opener = Objects.requireNonNull(opener);
+        this.budget = Objects.requireNonNull(budget);
+        this.remaining = Bits.dictionary();
+    }
+
+    private Anytime(final Anytime other) {
+        this.engine = other.engine;
+        this.opener = other.opener;
+        this.budget = other.budget;
+        this.remaining = other.remaining.clone();
+        this.seen = other.seen;
+    }
+
+    @Override
+    public Optional<Word> guess(final Deque<Guess> history) {
+        final long start = System.nanoTime();
+        final long deadline = start + this.budget.nanos;
+        this.seen = Guess.filter(history, this.seen, this.remaining);
+        Metrics.filtered(history.size() + 1, Bits.cardinality(this.remaining), System.nanoTime() - start);
+        if (history.isEmpty()) {
+            return Optional.of(this.opener);
+        }
+
+        final var answers = Columns.of(this.remaining);
+        if (answers.size() <= 1) {
+            return answers.size() == 0 ? Optional.empty() : Optional.of(Wordle.DICTIONARY.toWord(answers.id(0)));
+        }
+        final long total = answers.total();
+        final double cap = Math.min(Math.log(Kernel.NUM_PATTERNS) / LN2, Search.entropy(answers, total)) + EPSILON;
+        final var kernel = Kernel.get();
+        final var dictionary = Wordle.DICTIONARY;
+
+        int best = -1;
+        double bestScore = 0;
+        int scored = 0;
+        boolean expired = false;
+        for (int rank = 0; rank < dictionary.size() && scored < answers.size(); rank++) {
+            final int word = dictionary.byCount(rank);
+            if (!Bits.get(this.remaining, word)) {
+                continue;
+            }
+            final double p = 1.0 * dictionary.count(word) / total;
+            if (best >= 0 && p * cap < bestScore) {
+                // all later candidates are at most as likely
+                break;
+            }
+            final double score = p * kernel.entropy(this.engine, word, answers, total);
+            if (best < 0 || score > bestScore || score == bestScore && word > best) {
+                best = word;
+                bestScore = score;
+            }
+            scored++;
+            if (System.nanoTime() - deadline > 0) {
+                expired = true;
+                break;
+            }
+        }
+        Metrics.scored(scored, (long) scored * answers.size());
+        this.budget.record(scored, answers.size(), expired);
+        return Optional.of(dictionary.toWord(best));
+    }
+
+    @Override
+    public void finish(final long guesses) {
+        Bits.release(this.remaining);
+    }
+
+    @Override
+    public Optional<Guesser> fork() {
+        return Optional.of(new Anytime(this));
+    }
+
+    /**
+     * Time per guess, and how much of the candidates the guesses got to score in it.
+     */
+    public static final class Budget {
+
+        private final long nanos;
+        private final LongAdder guesses = new LongAdder();
+        private final LongAdder scored = new LongAdder();
+        private final LongAdder candidates = new LongAdder();
+        private final LongAdder expired = new LongAdder();
+
+        /**
+         * @param millis time per guess, {@link Double#POSITIVE_INFINITY} for none
+         */
+        public Budget(final double millis) {
+            if (!(millis > 0)) {
+                throw new IllegalArgumentException("Deadline must be positive, was: " + millis);
+            }
+            this.nanos = millis * 1e6 >= Long.MAX_VALUE / 2 ? Long.MAX_VALUE / 2 : (long) (millis * 1e6);
+        }
+
+        private void record(final int scored, final int candidates, final boolean expired) {
+            this.guesses.increment();
+            this.scored.add(scored);
+            this.candidates.add(candidates);
+            if (expired) {
+                this.expired.increment();
+            }
+        }
+
+        /**
+         * @return number of guesses that had to score candidates
+         */
+        public long guesses() {
+            return this.guesses.sum();
+        }
+
+        /**
+         * @return fraction of the remaining candidates that were scored, over all guesses
+         */
+        public double evaluated() {
+            return 1.0 * this.scored.sum() / Math.max(this.candidates.sum(), 1);
+        }
+
+        /**
+         * @return number of guesses that ran out of time
+         */
+        public long expired() {
+            return this.expired.sum();
+        }
+    }
+}
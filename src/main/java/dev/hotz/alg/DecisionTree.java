@@ -0,0 +1,172 @@
+package dev.hotz.alg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import dev.hotz.Wordle;
+
+/**
+ * Guessing strategy as a tree: each node holds the guess for its history and one child per feedback pattern
+ * (except all correct) that an answer may give, so replaying it costs a lookup per turn (see {@link Optimal}).
+ * <p>
+ * A tree is computed for a set of answers (see {@link Solver}) and stored in a versioned binary file with the
+ * {@link dev.hotz.Dictionary#fingerprint()} and the {@link #fingerprint(int[]) fingerprint} of the answers;
+ * a tree for another dictionary or other answers is ignored.
+ * Layout (big endian): magic, version, dictionary fingerprint, answers fingerprint, total number of guesses to
+ * find all answers, then the nodes in preorder, each as guess id, number of children and per child its pattern
+ * followed by the child.
+ */
+public final class DecisionTree {
+
+    // "JTRE"
+    private static final int MAGIC = 0x4a545245;
+    private static final int VERSION = 1;
+
+    private final Node root;
+    private final long answers;
+    private final long cost;
+
+    DecisionTree(final Node root, final long answers, final long cost) {
+        this.root = root;
+        this.answers = answers;
+        this.cost = cost;
+    }
+
+    public Node root() {
+        return this.root;
+    }
+
+    /**
+     * @return total number of guesses to find all answers the tree was computed for
+     */
+    public long cost() {
+        return this.cost;
+    }
+
+    /**
+     * @param answers sorted dictionary ids of the answers
+     * @return checksum over the answers, to tell trees for different answers apart
+     */
+    public static long fingerprint(final int[] answers) {
+        final var buf = ByteBuffer.allocate(answers.length * Integer.BYTES);
+        buf.asIntBuffer().put(answers);
+        final var crc = new CRC32();
+        crc.update(buf);
+        return crc.getValue();
+    }
+
+    /**
+     * Load a tree for {@code answers} (sorted dictionary ids).
+     * @return the tree, or empty if the file is missing or for another dictionary or other answers
+     */
+    public static Optional<DecisionTree> load(final Path file, final int[] answers) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            final long fingerprint = fingerprint(answers);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != Wordle.DICTIONARY.fingerprint() || in.readLong() != fingerprint) {
+                return Optional.empty();
+            }
+            final long cost = in.readLong();
+            return Optional.of(new DecisionTree(read(in), fingerprint, cost));
+        }
+    }
+
+    private static Node read(final DataInputStream in) throws IOException {
+        final int guess = in.readInt();
+        final var patterns = new byte[in.readUnsignedByte()];
+        final var children = new Node[patterns.length];
+        for (int c = 0; c < children.length; c++) {
+            patterns[c] = in.readByte();
+            children[c] = read(in);
+        }
+        return new Node(guess, patterns, children);
+    }
+
+    public void save(final Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        final var tmp = Files.createTempFile(file.toAbsolutePath().getParent(), "tree", ".tmp");
+        try {
+            try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(Wordle.DICTIONARY.fingerprint());
+                out.writeLong(this.answers);
+                out.writeLong(this.cost);
+                write(out, this.root);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void write(final DataOutputStream out, final Node node) throws IOException {
+        out.writeInt(node.guess);
+        out.writeByte(node.children.length);
+        for (int c = 0; c < node.children.length; c++) {
+            out.writeByte(node.patterns[c]);
+            write(out, node.children[c]);
+        }
+    }
+
+    public static final class Node {
+
+        private final int guess;
+        // ascending pattern indices (as unsigned bytes) of the children
+        private final byte[] patterns;
+        private final Node[] children;
+
+        Node(final int guess, final byte[] patterns, final Node[] children) {
+            this.guess = guess;
+            this.patterns = patterns;
+            this.children = children;
+        }
+
+        /**
+         * @return dictionary id of the guess
+         */
+        public int guess() {
+            return this.guess;
+        }
+
+        /**
+         * @return node to continue with after the guess got feedback {@code pattern}, or {@code null} if no answer
+         *         of the tree gives this feedback
+         */
+        public Node child(final int pattern) {
+            // binary search over the unsigned patterns
+            for (int lo = 0, hi = this.patterns.length - 1; lo <= hi; ) {
+                final int mid = (lo + hi) >>> 1;
+                final int p = this.patterns[mid] & 0xff;
+                if (p < pattern) {
+                    lo = mid + 1;
+                } else if (p > pattern) {
+                    hi = mid - 1;
+                } else {
+                    return this.children[mid];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return number of nodes in the subtree
+         */
+        public int size() {
+            return 1 + Arrays.stream(this.children).mapToInt(Node::size).sum();
+        }
+    }
+}
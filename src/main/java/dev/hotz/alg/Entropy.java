@@ -1,15 +1,17 @@
 package dev.hotz.alg;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Deque;
-import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+import dev.hotz.Bits;
+import dev.hotz.Columns;
 import dev.hotz.Guesser;
-import dev.hotz.Util;
+import dev.hotz.Metrics;
+import dev.hotz.PatternEngine;
 import dev.hotz.Wordle;
-import dev.hotz.Wordle.Correctness;
 import dev.hotz.Wordle.Word;
 
 /**
@@ -17,60 +19,175 @@ import dev.hotz.Wordle.Word;
  */
 public class Entropy implements Guesser {
 
-    private final List<Util.Pair<Word, Long>> remaining;
+    // bitset over the dictionary ids of the remaining words
+    private final long[] remaining;
+    // number of history entries already filtered by
+    private int seen;
 
-    private static final int NUM_PATTERNS = (int) Math.pow(Correctness.values().length, Wordle.LENGTH);
+    // below this many candidates parallel scoring is not worth the overhead
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 512;
+    // in candidates
+    private static final int MIN_GRAIN = Long.SIZE;
 
+    // first guess unless another one is given, see Openers for how others compare
+    public static final String DEFAULT_OPENER = "tares";
+    static final Word OPENER = new Word(DEFAULT_OPENER);
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final PatternEngine engine;
+    private final Word opener;
+
+    /**
+     * Create a guesser that scores candidates serially.
+     */
     public Entropy() {
-        this.remaining = new ArrayList<>(Wordle.DICTIONARY.entrySet()
-                .stream()
-                .map(e -> new Util.Pair<>(e.getKey(), e.getValue()))
-                .toList());
+        this(null, Integer.MAX_VALUE);
+    }
+
+    public Entropy(final ForkJoinPool pool, final int parallelThreshold) {
+        this(pool, parallelThreshold, PatternEngine.matrix());
+    }
+
+    /**
+     * Create a guesser that scores candidates in parallel on {@code pool}, if there are at least
+     * {@code parallelThreshold} remaining words.
+     * @param pool pool to score on, or {@code null} to always score serially
+     * @param parallelThreshold minimum number of remaining words for parallel scoring
+     * @param engine computes the patterns of a candidate against the remaining words
+     */
+    public Entropy(final ForkJoinPool pool, final int parallelThreshold, final PatternEngine engine) {
+        this(pool, parallelThreshold, engine, OPENER);
+    }
+
+    /**
+     * Like {@link #Entropy(ForkJoinPool, int, PatternEngine)}, but with {@code opener} as first guess.
+     */
+    public Entropy(final ForkJoinPool pool, final int parallelThreshold, final PatternEngine engine, final Word opener) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.engine = Objects.requireNonNull(engine);
+        this.opener = Objects.requireNonNull(opener);
+        this.remaining = Bits.dictionary();
+    }
+
+    private Entropy(final Entropy other) {
+        this.pool = other.pool;
+        this.parallelThreshold = other.parallelThreshold;
+        this.engine = other.engine;
+        this.opener = other.opener;
+        this.remaining = other.remaining.clone();
+        this.seen = other.seen;
     }
 
     @Override
     public Optional<Word> guess(final Deque<Guess> history) {
-        // avoid allocations in inner-most loop
-        final var corr = Correctness.initMask();
-        if (!history.isEmpty()) {
-            final var last = history.getLast();
-            this.remaining.removeIf(e -> !last.matches(e.left(), corr));
+        filter(history);
+        if (history.isEmpty()) {
+            return Optional.of(this.opener);
+        }
+
+        final var answers = Columns.of(this.remaining);
+        final long remaining_count = answers.total();
+
+        final Candidate best;
+        if (this.pool != null && answers.size() >= this.parallelThreshold) {
+            final int grain = Math.max(MIN_GRAIN, answers.size() / (this.pool.getParallelism() * 4));
+            best = this.pool.invoke(new Score(answers, 0, answers.size(), remaining_count, grain));
         } else {
-            return Optional.of(new Word("tares"));
+            best = score(answers, 0, answers.size(), remaining_count);
         }
 
-        final long remaining_count = this.remaining.stream().mapToLong(Util.Pair::right).sum();
-        Optional<Candidate> best = Optional.empty();
-
-        for (final var p : this.remaining) {
-            // hypothetical "old guess"
-            final var word = p.left();
-            // instead of iterating over each pattern and all next guesses
-            // and checking for compatibility with the old guess (matches)
-            // we observe that each combination of next guess and old guess
-            // produces exactly one correctness pattern.
-            // since we have 3^5 possible patterns, we can just index them.
-            final long[] in_pattern_total = new long[NUM_PATTERNS];
-            for (final var e : this.remaining) {
-                in_pattern_total[Correctness.idx(Correctness.compute(e.left(), word))] += e.right();
+        return Optional.ofNullable(best).map(c -> Wordle.DICTIONARY.toWord(c.word()));
+    }
+
+    /**
+     * Remove the words that do not match the guesses in {@code history} which we have not seen yet.
+     */
+    private void filter(final Deque<Guess> history) {
+        final long start = System.nanoTime();
+        this.seen = Guess.filter(history, this.seen, this.remaining);
+        Metrics.filtered(history.size() + 1, Bits.cardinality(this.remaining), System.nanoTime() - start);
+    }
+
+    @Override
+    public void finish(final long guesses) {
+        Bits.release(this.remaining);
+    }
+
+    @Override
+    public Optional<Guesser> fork() {
+        return Optional.of(new Entropy(this));
+    }
+
+    /**
+     * Score the remaining candidates {@code [from, to)} of {@code answers} against all of {@code answers}.
+     * @return best candidate in the range, on equal goodness the later one wins; {@code null} for an empty range
+     */
+    private Candidate score(final Columns answers, final int from, final int to, final long remaining_count) {
+        final var kernel = Kernel.get();
+        int best = -1;
+        double bestGoodness = 0;
+        for (int c = from; c < to; c++) {
+            final int word = answers.id(c);
+            // the expected information of its feedback, weighted by its probability
+            final double p_word = 1.0 * Wordle.DICTIONARY.count(word) / remaining_count;
+            final double goodness = p_word * kernel.entropy(this.engine, word, answers, remaining_count);
+            if (best < 0 || !(goodness < bestGoodness)) {
+                best = word;
+                bestGoodness = goodness;
             }
+        }
+        Metrics.scored(to - from, (long) (to - from) * answers.size());
+        return best < 0 ? null : new Candidate(best, bestGoodness);
+    }
 
-            final double sum = Arrays.stream(in_pattern_total)
-                    .filter(c -> c > 0)
-                    .mapToDouble(total -> {
-                        final double p_of_this_pattern = 1.0 * total / remaining_count;
-                        return p_of_this_pattern * (Math.log(p_of_this_pattern) / Math.log(2));
-                    }).sum();
-
-            final double p_word = 1.0 * p.right() / remaining_count;
-            final double entropy = -sum;
-            final double goodness = p_word * entropy;
-            best = best.filter(currBest -> goodness < currBest.goodness).or(() -> Optional.of(new Candidate(word, goodness)));
+    /**
+     * Deterministic tie-break: {@code later} wins unless it is strictly worse, as in a serial scan.
+     */
+    private static Candidate better(final Candidate earlier, final Candidate later) {
+        if (earlier == null) {
+            return later;
         }
+        if (later == null) {
+            return earlier;
+        }
+        return later.goodness < earlier.goodness ? earlier : later;
+    }
+
+    /**
+     * Fork-join scoring of a range of candidates. Leaves score serially with their thread's kernel and
+     * results are combined left to right, so the chosen candidate is the same as with the serial scan.
+     */
+    private final class Score extends RecursiveTask<Candidate> {
+
+        private final Columns answers;
+        private final int from;
+        private final int to;
+        private final long remaining_count;
+        private final int grain;
 
-        return best.map(Candidate::word);
+        private Score(final Columns answers, final int from, final int to, final long remaining_count, final int grain) {
+            this.answers = answers;
+            this.from = from;
+            this.to = to;
+            this.remaining_count = remaining_count;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Candidate compute() {
+            if (this.to - this.from <= this.grain) {
+                return score(this.answers, this.from, this.to, this.remaining_count);
+            }
+            final int mid = (this.from + this.to) >>> 1;
+            final var left = new Score(this.answers, this.from, mid, this.remaining_count, this.grain);
+            left.fork();
+            final var right = new Score(this.answers, mid, this.to, this.remaining_count, this.grain).compute();
+            return better(left.join(), right);
+        }
     }
 
-    private record Candidate(Word word, double goodness) {
+    private record Candidate(int word, double goodness) {
     }
 }
@@ -0,0 +1,87 @@
+package dev.hotz.alg;
+
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Optional;
+
+import dev.hotz.Bits;
+import dev.hotz.Guesser;
+import dev.hotz.Metrics;
+import dev.hotz.PatternEngine;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Entropy guesser that may guess any dictionary word, not only the remaining ones: a word that cannot be the answer
+ * may still split the remaining words better.
+ * A candidate scores the entropy of its feedback (in bits) plus the probability that it is the answer; candidates
+ * are pruned by an upper bound of their score (see {@link Search}), so that only a fraction of the dictionary is
+ * scored per guess.
+ */
+public class FullEntropy implements Guesser {
+
+    // bitset over the dictionary ids of the remaining words
+    private final long[] remaining;
+    // number of history entries already filtered by
+    private int seen;
+
+    private final PatternEngine engine;
+    private final Word opener;
+
+    public FullEntropy() {
+        this(PatternEngine.matrix());
+    }
+
+    /**
+     * @param engine computes the patterns of a candidate against the remaining words
+     */
+    public FullEntropy(final PatternEngine engine) {
+        this(engine, Entropy.OPENER);
+    }
+
+    /**
+     * @param engine computes the patterns of a candidate against the remaining words
+     * @param opener first guess
+     */
+    public FullEntropy(final PatternEngine engine, final Word opener) {
+        this.engine = Objects.requireNonNull(engine);
+        this.opener = Objects.requireNonNull(opener);
+        this.remaining = Bits.dictionary();
+    }
+
+    private FullEntropy(final FullEntropy other) {
+        this.engine = other.engine;
+        this.opener = other.opener;
+        this.remaining = other.remaining.clone();
+        this.seen = other.seen;
+    }
+
+    @Override
+    public Optional<Word> guess(final Deque<Guess> history) {
+        filter(history);
+        if (history.isEmpty()) {
+            return Optional.of(this.opener);
+        }
+        final var best = Search.top(this.engine, this.remaining, 1);
+        return best.length == 0 ? Optional.empty() : Optional.of(Wordle.DICTIONARY.toWord(best[0].word()));
+    }
+
+    /**
+     * Remove the words that do not match the guesses in {@code history} which we have not seen yet.
+     */
+    private void filter(final Deque<Guess> history) {
+        final long start = System.nanoTime();
+        this.seen = Guess.filter(history, this.seen, this.remaining);
+        Metrics.filtered(history.size() + 1, Bits.cardinality(this.remaining), System.nanoTime() - start);
+    }
+
+    @Override
+    public void finish(final long guesses) {
+        Bits.release(this.remaining);
+    }
+
+    @Override
+    public Optional<Guesser> fork() {
+        return Optional.of(new FullEntropy(this));
+    }
+}
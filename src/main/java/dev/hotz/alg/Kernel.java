@@ -0,0 +1,130 @@
+package dev.hotz.alg;
+
+import dev.hotz.Bits;
+import dev.hotz.Columns;
+import dev.hotz.PatternEngine;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Correctness;
+
+/**
+ * Pattern histogram of one candidate against the remaining words and its entropy, without allocation:
+ * the buffers are per thread (see {@link #get()}) and reused by every candidate scored on it.
+ */
+final class Kernel {
+
+    static final int NUM_PATTERNS = (int) Math.pow(Correctness.values().length, Wordle.LENGTH);
+    private static final double LN2 = Math.log(2);
+    // with at least this many remaining words most patterns are hit, so tracking them costs more than sweeping all
+    private static final int SPARSE_LIMIT = NUM_PATTERNS;
+    private static final long[] ALL_TOUCHED = Bits.all(NUM_PATTERNS);
+
+    private static final ThreadLocal<Kernel> KERNEL = ThreadLocal.withInitial(Kernel::new);
+
+    // pattern of the candidate against each remaining word
+    private final byte[] patterns = new byte[Wordle.DICTIONARY.size()];
+    // total count of the remaining words per pattern
+    private final long[] buckets = new long[NUM_PATTERNS];
+    // patterns that were hit
+    private final long[] touched = new long[Bits.words(NUM_PATTERNS)];
+
+    private Kernel() {
+        // per thread
+    }
+
+    /**
+     * @return the kernel of the current thread
+     */
+    static Kernel get() {
+        return KERNEL.get();
+    }
+
+    /**
+     * Entropy of the feedback to guessing {@code word}, if the answer is one of {@code answers} with probability
+     * proportional to its count. Leaves the buffers cleared.
+     * @param engine computes the patterns of {@code word} against {@code answers}
+     * @param total sum of the counts of {@code answers}
+     * @return entropy in bits
+     */
+    double entropy(final PatternEngine engine, final int word, final Columns answers, final long total) {
+        // hypothetical "old guess"
+        // instead of iterating over each pattern and all next guesses
+        // and checking for compatibility with the old guess (matches)
+        // we observe that each combination of next guess and old guess
+        // produces exactly one correctness pattern.
+        // since we have 3^5 possible patterns, we can just index them.
+        // the engine computes (or looks up) the patterns of the candidate against all remaining words at once.
+        engine.patterns(word, answers, this.patterns);
+        final long[] in_pattern_total = this.buckets;
+        final long[] touched = this.touched;
+        final int n = answers.size();
+        if (n < SPARSE_LIMIT) {
+            for (int k = 0; k < n; k++) {
+                final int pattern = this.patterns[k] & 0xff;
+                in_pattern_total[pattern] += answers.count(k);
+                touched[pattern >>> 6] |= 1L << pattern;
+            }
+        } else {
+            for (int k = 0; k < n; k++) {
+                in_pattern_total[this.patterns[k] & 0xff] += answers.count(k);
+            }
+            System.arraycopy(ALL_TOUCHED, 0, touched, 0, touched.length);
+        }
+
+        return sum(total);
+    }
+
+    /**
+     * Compute the patterns of {@code word} against {@code answers}, for {@link #entropy(int[], long[], long)}.
+     * @param engine computes the patterns of {@code word} against {@code answers}
+     */
+    void patterns(final PatternEngine engine, final int word, final Columns answers) {
+        engine.patterns(word, answers, this.patterns);
+    }
+
+    /**
+     * Entropy of the feedback to the word of the last {@link #patterns(PatternEngine, int, Columns)}, if the answer
+     * is one of the words at the positions {@code ks} of its answers with probability proportional to
+     * {@code counts}. This way the patterns of a word are computed once for several subsets of the answers.
+     * Leaves the buffers cleared.
+     * @param counts count of the word at each position of {@code ks}
+     * @param total sum of {@code counts}
+     * @return entropy in bits
+     */
+    double entropy(final int[] ks, final long[] counts, final long total) {
+        for (int i = 0; i < ks.length; i++) {
+            final int pattern = this.patterns[ks[i]] & 0xff;
+            this.buckets[pattern] += counts[i];
+            this.touched[pattern >>> 6] |= 1L << pattern;
+        }
+        return sum(total);
+    }
+
+    /**
+     * @return entropy of the touched buckets, which are cleared
+     */
+    private double sum(final long total) {
+        final long[] in_pattern_total = this.buckets;
+        final long[] touched = this.touched;
+        // counts are weighted by frequency, so there is no small range of totals to tabulate x*log2(x) for.
+        // visit the touched patterns in ascending order with the compensated summation of DoubleStream.sum(),
+        // which the scores have always been computed with, so that they stay bit for bit the same
+        double sum = 0;
+        double compensation = 0;
+        for (int w = 0; w < touched.length; w++) {
+            for (long bits = touched[w]; bits != 0; bits &= bits - 1) {
+                final int pattern = w * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                final long pattern_total = in_pattern_total[pattern];
+                in_pattern_total[pattern] = 0;
+                if (pattern_total > 0) {
+                    final double p_of_this_pattern = 1.0 * pattern_total / total;
+                    final double y = p_of_this_pattern * (Math.log(p_of_this_pattern) / LN2) - compensation;
+                    final double t = sum + y;
+                    compensation = (t - sum) - y;
+                    sum = t;
+                }
+            }
+            touched[w] = 0;
+        }
+        return -(sum - compensation);
+    }
+}
@@ -0,0 +1,225 @@
+package dev.hotz.alg;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+import dev.hotz.Bits;
+import dev.hotz.Columns;
+import dev.hotz.Guesser;
+import dev.hotz.Metrics;
+import dev.hotz.PatternEngine;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Lookahead (3blue1brown "version 2"): once at most {@code EXACT_SIZE} words remain, a guess is rated by the expected
+ * number of guesses to find the answer if the best guess is played after every feedback to it, which is searched
+ * exactly among the {@code topK} best guesses by the score of {@link FullEntropy} per set of remaining words. As long
+ * as more words remain, the best guess of {@link FullEntropy} is played, as the expected number of guesses of such a
+ * set can only be estimated, e.g. from its entropy, which plays worse than the score.
+ * <p>
+ * The expected number of guesses of a set of remaining words is memoized by the set, the memo is shared by all
+ * {@link #fork() forks} and cleared when it reaches {@code MEMO_SIZE} sets.
+ * The candidates are evaluated in parallel on the pool, if any.
+ */
+public class Lookahead implements Guesser {
+
+    public static final int DEFAULT_TOP_K = 16;
+    // most remaining words to look ahead from
+    private static final int EXACT_SIZE = 16;
+
+    private static final int MEMO_SIZE = 1 << 16;
+
+    // bitset over the dictionary ids of the remaining words
+    private final long[] remaining;
+    // number of history entries already filtered by
+    private int seen;
+
+    private final ForkJoinPool pool;
+    private final int topK;
+    private final PatternEngine engine;
+    private final Word opener;
+    // remaining set -> expected number of guesses
+    private final Map<Key, Double> memo;
+
+    public Lookahead() {
+        this(null, DEFAULT_TOP_K, PatternEngine.matrix());
+    }
+
+    /**
+     * @param pool pool to evaluate the candidates on, or {@code null} to evaluate them serially
+     * @param topK number of candidates to look ahead from per set of remaining words
+     * @param engine computes the patterns of a candidate against the remaining words
+     */
+    public Lookahead(final ForkJoinPool pool, final int topK, final PatternEngine engine) {
+        this(pool, topK, engine, Entropy.OPENER);
+    }
+
+    /**
+     * Like {@link #Lookahead(ForkJoinPool, int, PatternEngine)}, but with {@code opener} as first guess.
+     */
+    public Lookahead(final ForkJoinPool pool, final int topK, final PatternEngine engine, final Word opener) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be positive, was: " + topK);
+        }
+        this.pool = pool;
+        this.topK = topK;
+        this.engine = Objects.requireNonNull(engine);
+        this.opener = Objects.requireNonNull(opener);
+        this.memo = new ConcurrentHashMap<>();
+        this.remaining = Bits.dictionary();
+    }
+
+    private Lookahead(final Lookahead other) {
+        this.pool = other.pool;
+        this.topK = other.topK;
+        this.engine = other.engine;
+        this.opener = other.opener;
+        this.memo = other.memo;
+        this.remaining = other.remaining.clone();
+        this.seen = other.seen;
+    }
+
+    @Override
+    public Optional<Word> guess(final Deque<Guess> history) {
+        filter(history);
+        if (history.isEmpty()) {
+            return Optional.of(this.opener);
+        }
+        final int size = Bits.cardinality(this.remaining);
+        if (size <= 2 || size > EXACT_SIZE) {
+            // one guess at most to go after this one, or too many words to look ahead from
+            final var best = Search.top(this.engine, this.remaining, 1);
+            return best.length == 0 ? Optional.empty() : Optional.of(Wordle.DICTIONARY.toWord(best[0].word()));
+        }
+
+        final var candidates = Search.top(this.engine, this.remaining, this.topK);
+        final var answers = Columns.of(this.remaining);
+        final double[] scores;
+        if (this.pool != null) {
+            final List<ForkJoinTask<Double>> tasks = Stream.of(candidates)
+                    .map(c -> ForkJoinTask.adapt(() -> expected(c.word(), answers)))
+                    .toList();
+            scores = this.pool.submit(() -> ForkJoinTask.invokeAll(tasks).stream().mapToDouble(ForkJoinTask::join).toArray()).join();
+        } else {
+            scores = Stream.of(candidates).mapToDouble(c -> expected(c.word(), answers)).toArray();
+        }
+
+        // on equal scores the better candidate by its own score wins
+        int best = 0;
+        for (int c = 1; c < scores.length; c++) {
+            if (scores[c] < scores[best]) {
+                best = c;
+            }
+        }
+        return Optional.of(Wordle.DICTIONARY.toWord(candidates[best].word()));
+    }
+
+    /**
+     * @return expected number of guesses from {@code guess} on, if the best guess is played after it, or infinity if
+     *         it does not split {@code answers}
+     */
+    private double expected(final int guess, final Columns answers) {
+        final var patterns = new byte[answers.size()];
+        this.engine.patterns(guess, answers, patterns);
+        final var buckets = new long[Kernel.NUM_PATTERNS][];
+        final var totals = new long[Kernel.NUM_PATTERNS];
+        final long total = answers.total();
+        for (int k = 0; k < answers.size(); k++) {
+            final int p = patterns[k] & 0xff;
+            if (buckets[p] == null) {
+                buckets[p] = new long[this.remaining.length];
+            }
+            Bits.set(buckets[p], answers.id(k));
+            totals[p] += answers.count(k);
+        }
+
+        double expected = 1;
+        // pattern 0 (all correct) ends the game
+        for (int p = 1; p < buckets.length; p++) {
+            if (totals[p] == total) {
+                return Double.POSITIVE_INFINITY;
+            }
+            if (buckets[p] != null) {
+                expected += 1.0 * totals[p] / total * best(buckets[p]);
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * @return expected number of guesses if the answer is one of {@code remaining} and the best guess is played next
+     */
+    private double best(final long[] remaining) {
+        final var answers = Columns.of(remaining);
+        if (answers.size() == 1) {
+            return 1;
+        }
+        final var key = new Key(answers);
+        final var known = this.memo.get(key);
+        if (known != null) {
+            return known;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (final var next : Search.top(this.engine, remaining, this.topK)) {
+            best = Math.min(best, expected(next.word(), answers));
+        }
+        if (this.memo.size() >= MEMO_SIZE) {
+            this.memo.clear();
+        }
+        this.memo.put(key, best);
+        return best;
+    }
+
+    /**
+     * Remove the words that do not match the guesses in {@code history} which we have not seen yet.
+     */
+    private void filter(final Deque<Guess> history) {
+        final long start = System.nanoTime();
+        this.seen = Guess.filter(history, this.seen, this.remaining);
+        Metrics.filtered(history.size() + 1, Bits.cardinality(this.remaining), System.nanoTime() - start);
+    }
+
+    @Override
+    public void finish(final long guesses) {
+        Bits.release(this.remaining);
+    }
+
+    @Override
+    public Optional<Guesser> fork() {
+        return Optional.of(new Lookahead(this));
+    }
+
+    private static final class Key {
+
+        // dictionary ids in id order
+        private final int[] set;
+        private final int hash;
+
+        private Key(final Columns answers) {
+            this.set = new int[answers.size()];
+            for (int k = 0; k < this.set.length; k++) {
+                this.set[k] = answers.id(k);
+            }
+            this.hash = Arrays.hashCode(this.set);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || o instanceof final Key key && Arrays.equals(this.set, key.set);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -1,13 +1,11 @@
 package dev.hotz.alg;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Deque;
-import java.util.Map;
 import java.util.Optional;
 
+import dev.hotz.Bits;
 import dev.hotz.Guesser;
-import dev.hotz.Util;
+import dev.hotz.Metrics;
 import dev.hotz.Wordle;
 import dev.hotz.Wordle.Word;
 
@@ -16,23 +14,50 @@ import dev.hotz.Wordle.Word;
  */
 public class MostFreq implements Guesser {
 
-    private final ArrayList<Util.Pair<Word, Long>> remaining;
+    // bitset over the dictionary ids of the remaining words
+    private final long[] remaining;
+    // rank by count (see Dictionary#byCount(int)) before which no word remains
+    private int first;
+    // number of history entries already filtered by
+    private int seen;
 
     public MostFreq() {
-        this.remaining = new ArrayList<>(Wordle.DICTIONARY.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .map(e -> new Util.Pair<>(e.getKey(), e.getValue()))
-                .toList());
+        this.remaining = Bits.dictionary();
+    }
+
+    private MostFreq(final MostFreq other) {
+        this.remaining = other.remaining.clone();
+        this.first = other.first;
+        this.seen = other.seen;
     }
 
     @Override
     public Optional<Word> guess(final Deque<Guess> history) {
-        if (!history.isEmpty()) {
-            final var corr = Wordle.Correctness.initMask();
-            final var last = history.getLast();
-            this.remaining.removeIf(e -> !last.matches(e.left(), corr));
+        filter(history);
+        // words only ever get removed, so the most frequent remaining one can only move further back
+        final var dictionary = Wordle.DICTIONARY;
+        while (this.first < dictionary.size() && !Bits.get(this.remaining, dictionary.byCount(this.first))) {
+            this.first++;
         }
-        return this.remaining.stream().findFirst().map(Util.Pair::left);
+        return this.first < dictionary.size() ? Optional.of(dictionary.toWord(dictionary.byCount(this.first))) : Optional.empty();
+    }
+
+    /**
+     * Remove the words that do not match the guesses in {@code history} which we have not seen yet.
+     */
+    private void filter(final Deque<Guess> history) {
+        final long start = System.nanoTime();
+        this.seen = Guess.filter(history, this.seen, this.remaining);
+        Metrics.filtered(history.size() + 1, Bits.cardinality(this.remaining), System.nanoTime() - start);
+    }
+
+    @Override
+    public void finish(final long guesses) {
+        Bits.release(this.remaining);
+    }
+
+    @Override
+    public Optional<Guesser> fork() {
+        return Optional.of(new MostFreq(this));
     }
 }
@@ -0,0 +1,226 @@
+package dev.hotz.alg;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import dev.hotz.Bits;
+import dev.hotz.Columns;
+import dev.hotz.Guesser.Guess;
+import dev.hotz.Metrics;
+import dev.hotz.MultiGuesser;
+import dev.hotz.PatternEngine;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Entropy guesser for several boards: a candidate scores the sum over the unsolved boards of the entropy of its
+ * feedback plus the probability that it is the answer there, as in {@link FullEntropy}. The candidates are the words
+ * remaining on any unsolved board, and a board with a single remaining word is solved right away.
+ * <p>
+ * The patterns of a candidate are computed once against the union of the remaining words of all boards, and each
+ * board sums its entropy over its own positions in the union (see {@link Kernel#entropy(int[], long[], long)}).
+ * The candidates are scored in parallel on the pool, each task for all boards, if there are enough of them.
+ */
+public class MultiEntropy implements MultiGuesser {
+
+    // pattern index of all CORRECT
+    private static final int SOLVED = 0;
+    // in candidates
+    private static final int MIN_GRAIN = Long.SIZE;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final PatternEngine engine;
+    private final Word opener;
+
+    // per board: bitset over the dictionary ids of the remaining words, created on the first guess
+    private long[][] remaining;
+    // per board: number of history entries already filtered by
+    private int[] seen;
+
+    public MultiEntropy() {
+        this(null, Integer.MAX_VALUE, PatternEngine.matrix(), Entropy.OPENER);
+    }
+
+    /**
+     * @param pool pool to score on, or {@code null} to always score serially
+     * @param parallelThreshold minimum number of candidates for parallel scoring
+     * @param engine computes the patterns of a candidate against the remaining words
+     * @param opener first guess
+     */
+    public MultiEntropy(final ForkJoinPool pool, final int parallelThreshold, final PatternEngine engine, final Word opener) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.engine = Objects.requireNonNull(engine);
+        this.opener = Objects.requireNonNull(opener);
+    }
+
+    @Override
+    public Optional<Word> guess(final List<Deque<Guess>> histories) {
+        if (this.remaining == null) {
+            this.remaining = new long[histories.size()][];
+            this.seen = new int[histories.size()];
+            for (int b = 0; b < histories.size(); b++) {
+                this.remaining[b] = Bits.dictionary();
+            }
+        }
+        final var union = new long[Bits.words(Wordle.DICTIONARY.size())];
+        int boards = 0;
+        boolean first = true;
+        for (int b = 0; b < histories.size(); b++) {
+            final var history = histories.get(b);
+            first &= history.isEmpty();
+            if (!history.isEmpty() && history.peekLast().pattern() == SOLVED) {
+                continue;
+            }
+            final long start = System.nanoTime();
+            this.seen[b] = Guess.filter(history, this.seen[b], this.remaining[b]);
+            final int left = Bits.cardinality(this.remaining[b]);
+            Metrics.filtered(history.size() + 1, left, System.nanoTime() - start);
+            if (left == 1) {
+                // certain to solve this board
+                return Optional.of(Wordle.DICTIONARY.toWord(Columns.of(this.remaining[b]).id(0)));
+            }
+            for (int w = 0; w < union.length; w++) {
+                union[w] |= this.remaining[b][w];
+            }
+            boards++;
+        }
+        if (first) {
+            return Optional.of(this.opener);
+        }
+        if (boards == 0) {
+            return Optional.empty();
+        }
+
+        // positions of the remaining words of each unsolved board in the union
+        final var answers = Columns.of(union);
+        final var ks = new int[boards][];
+        final var counts = new long[boards][];
+        final var totals = new long[boards];
+        final var bits = new long[boards][];
+        int u = 0;
+        for (int b = 0; b < histories.size(); b++) {
+            final var history = histories.get(b);
+            if (!history.isEmpty() && history.peekLast().pattern() == SOLVED) {
+                continue;
+            }
+            bits[u] = this.remaining[b];
+            ks[u] = new int[Bits.cardinality(bits[u])];
+            counts[u] = new long[ks[u].length];
+            int n = 0;
+            for (int k = 0; k < answers.size(); k++) {
+                if (Bits.get(bits[u], answers.id(k))) {
+                    ks[u][n] = k;
+                    counts[u][n++] = answers.count(k);
+                    totals[u] += answers.count(k);
+                }
+            }
+            u++;
+        }
+
+        final var boardsLeft = new Boards(answers, ks, counts, totals, bits);
+        final Candidate best;
+        if (this.pool != null && answers.size() >= this.parallelThreshold) {
+            final int grain = Math.max(MIN_GRAIN, answers.size() / (this.pool.getParallelism() * 4));
+            best = this.pool.invoke(new Score(boardsLeft, 0, answers.size(), grain));
+        } else {
+            best = score(boardsLeft, 0, answers.size());
+        }
+        return Optional.ofNullable(best).map(c -> Wordle.DICTIONARY.toWord(c.word()));
+    }
+
+    @Override
+    public void finish(final long guesses) {
+        if (this.remaining != null) {
+            for (final long[] bits : this.remaining) {
+                Bits.release(bits);
+            }
+        }
+    }
+
+    /**
+     * Score the candidates {@code [from, to)} of the union against all unsolved boards.
+     * @return best candidate in the range, on equal scores the earlier one; {@code null} for an empty range
+     */
+    private Candidate score(final Boards boards, final int from, final int to) {
+        final var kernel = Kernel.get();
+        final var answers = boards.answers();
+        int best = -1;
+        double bestScore = 0;
+        for (int c = from; c < to; c++) {
+            final int word = answers.id(c);
+            kernel.patterns(this.engine, word, answers);
+            double score = 0;
+            for (int b = 0; b < boards.ks().length; b++) {
+                score += kernel.entropy(boards.ks()[b], boards.counts()[b], boards.totals()[b]);
+                if (Bits.get(boards.bits()[b], word)) {
+                    score += 1.0 * answers.count(c) / boards.totals()[b];
+                }
+            }
+            if (best < 0 || score > bestScore) {
+                best = word;
+                bestScore = score;
+            }
+        }
+        Metrics.scored(to - from, (long) (to - from) * answers.size());
+        return best < 0 ? null : new Candidate(best, bestScore);
+    }
+
+    /**
+     * Deterministic tie-break: {@code earlier} wins unless it is strictly worse, as in a serial scan.
+     */
+    private static Candidate better(final Candidate earlier, final Candidate later) {
+        if (earlier == null) {
+            return later;
+        }
+        if (later == null) {
+            return earlier;
+        }
+        return later.score > earlier.score ? later : earlier;
+    }
+
+    /**
+     * Fork-join scoring of a range of candidates, combined left to right like {@link Entropy}.
+     */
+    private final class Score extends RecursiveTask<Candidate> {
+
+        private final Boards boards;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        private Score(final Boards boards, final int from, final int to, final int grain) {
+            this.boards = boards;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Candidate compute() {
+            if (this.to - this.from <= this.grain) {
+                return score(this.boards, this.from, this.to);
+            }
+            final int mid = (this.from + this.to) >>> 1;
+            final var left = new Score(this.boards, this.from, mid, this.grain);
+            left.fork();
+            final var right = new Score(this.boards, mid, this.to, this.grain).compute();
+            return better(left.join(), right);
+        }
+    }
+
+    /**
+     * The unsolved boards: union of their remaining words, and per board its positions in the union, their counts
+     * and total count and its remaining bitset.
+     */
+    private record Boards(Columns answers, int[][] ks, long[][] counts, long[] totals, long[][] bits) {
+    }
+
+    private record Candidate(int word, double score) {
+    }
+}
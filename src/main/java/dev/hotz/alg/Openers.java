@@ -0,0 +1,182 @@
+package dev.hotz.alg;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import dev.hotz.Bits;
+import dev.hotz.Columns;
+import dev.hotz.Guesser;
+import dev.hotz.PatternEngine;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Ranks all dictionary words as first guess: by the entropy of their feedback if the answer is any dictionary word
+ * (weighted by its count, as the guessers see it), and the best {@code top} of them by entropy also by the avg. score
+ * of full games with them as opener.
+ * <p>
+ * The games of an opener are played as one decision tree (see {@link Wordle#playAll(Word[], Guesser)}), so answers
+ * with the same history share its guesses, and the patterns come from the shared pattern matrix. The entropies are
+ * computed in chunks and the openers are played one per task on the pool, if any.
+ */
+public final class Openers {
+
+    // dictionary ids per entropy task
+    private static final int GRAIN = 256;
+
+    private final ForkJoinPool pool;
+    private final PatternEngine engine;
+    private final Wordle wordle;
+
+    private final AtomicInteger scored = new AtomicInteger();
+    private final AtomicInteger played = new AtomicInteger();
+    private volatile int top;
+
+    /**
+     * @param pool pool to rank on, or {@code null} to rank serially
+     * @param engine computes the patterns of a candidate against the dictionary
+     */
+    public Openers(final ForkJoinPool pool, final PatternEngine engine) {
+        this(pool, engine, Wordle.MAX_GUESSES);
+    }
+
+    /**
+     * @param pool pool to rank on, or {@code null} to rank serially
+     * @param engine computes the patterns of a candidate against the dictionary
+     * @param maxGuesses max. number of guesses until a full game is lost
+     */
+    public Openers(final ForkJoinPool pool, final PatternEngine engine, final int maxGuesses) {
+        this.pool = pool;
+        this.engine = Objects.requireNonNull(engine);
+        this.wordle = new Wordle(maxGuesses);
+    }
+
+    /**
+     * @param answers answers to play the full games with
+     * @param guessers creates a fresh guesser (that supports {@link Guesser#fork()}) with the given opener
+     * @param top number of openers by entropy to play full games with
+     * @return all dictionary words, those with full games first by ascending avg. score, then by descending entropy
+     */
+    public List<Opener> rank(final Word[] answers, final Function<Word, Guesser> guessers, final int top) {
+        this.top = Math.min(top, Wordle.DICTIONARY.size());
+        final var entropies = entropies();
+        final var byEntropy = new ArrayList<Opener>(entropies.length);
+        for (int id = 0; id < entropies.length; id++) {
+            byEntropy.add(new Opener(id, entropies[id], 0, 0, 0));
+        }
+        byEntropy.sort(Comparator.comparingDouble(Opener::entropy).reversed().thenComparingInt(Opener::id));
+
+        final var ranked = new ArrayList<Opener>(byEntropy.size());
+        ranked.addAll(run(byEntropy.subList(0, this.top).stream()
+                .map(o -> (Callable<Opener>) () -> play(o, answers, guessers))
+                .toList()));
+        ranked.sort(Comparator.comparingDouble(Opener::score).thenComparing(Comparator.comparingDouble(Opener::entropy).reversed())
+                .thenComparingInt(Opener::id));
+        ranked.addAll(byEntropy.subList(this.top, byEntropy.size()));
+        return ranked;
+    }
+
+    /**
+     * @return entropy in bits of the feedback of each dictionary id, if the answer is any dictionary word
+     */
+    double[] entropies() {
+        final var answers = Columns.of(Bits.all(Wordle.DICTIONARY.size()));
+        final long t = answers.total();
+        final var entropies = new double[Wordle.DICTIONARY.size()];
+        final var chunks = new ArrayList<Callable<Void>>();
+        for (int from = 0; from < entropies.length; from += GRAIN) {
+            final int start = from;
+            final int end = Math.min(from + GRAIN, entropies.length);
+            chunks.add(() -> {
+                final var kernel = Kernel.get();
+                for (int id = start; id < end; id++) {
+                    entropies[id] = kernel.entropy(this.engine, id, answers, t);
+                }
+                this.scored.addAndGet(end - start);
+                return null;
+            });
+        }
+        run(chunks);
+        return entropies;
+    }
+
+    private Opener play(final Opener opener, final Word[] answers, final Function<Word, Guesser> guessers) {
+        final var results = this.wordle.playAll(answers, guessers.apply(Wordle.DICTIONARY.toWord(opener.id())));
+        long guesses = 0;
+        int solved = 0;
+        for (final OptionalInt result : results) {
+            if (result.isPresent()) {
+                guesses += result.getAsInt();
+                solved++;
+            }
+        }
+        this.played.incrementAndGet();
+        return new Opener(opener.id(), opener.entropy(), guesses, solved, answers.length);
+    }
+
+    /**
+     * @return results of {@code tasks} in their order
+     */
+    private <T> List<T> run(final List<Callable<T>> tasks) {
+        if (this.pool == null) {
+            return tasks.stream().map(task -> {
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }).toList();
+        }
+        final var adapted = tasks.stream().map(ForkJoinTask::adapt).toList();
+        return this.pool.submit(() -> ForkJoinTask.invokeAll(adapted).stream().map(ForkJoinTask::join).toList()).join();
+    }
+
+    /**
+     * Print a one-line progress, meant to be overwritten by the next one.
+     */
+    public void printProgress(final PrintStream out) {
+        out.printf("\rentropy: %d/%d  games: %d/%d", this.scored.get(), Wordle.DICTIONARY.size(), this.played.get(), this.top);
+    }
+
+    /**
+     * Write {@code ranked} as CSV with a header; avg. score and solved (in percent) are empty for openers without full games.
+     */
+    public static void writeCsv(final List<Opener> ranked, final Writer out) throws IOException {
+        out.write("rank,word,entropy,avg_score,solved\n");
+        for (int r = 0; r < ranked.size(); r++) {
+            final var o = ranked.get(r);
+            out.write(String.format(Locale.US, "%d,%s,%.6f,", r + 1, Wordle.DICTIONARY.toWord(o.id()), o.entropy()));
+            out.write(o.games() > 0 ? String.format(Locale.US, "%.6f,%.2f\n", o.score(), 100.0 * o.solved() / o.games()) : ",\n");
+        }
+        out.flush();
+    }
+
+    /**
+     * @param id dictionary id of the opener
+     * @param entropy entropy of its feedback in bits
+     * @param guesses number of guesses of the solved games
+     * @param solved number of solved games
+     * @param games number of games played, 0 if none
+     */
+    public record Opener(int id, double entropy, long guesses, int solved, int games) {
+
+        /**
+         * @return avg. number of guesses of the solved games
+         */
+        public double score() {
+            return 1.0 * this.guesses / this.solved;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dev.hotz.alg;
+
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import dev.hotz.Guesser;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Replays a {@link DecisionTree}, e.g. the optimal one computed by {@link Solver}: each guess is a lookup of the
+ * child for the last feedback.
+ * Histories that leave the tree (other guesses, or an answer the tree was not computed for) are continued
+ * by a fallback guesser, {@link FullEntropy} by default.
+ */
+public class Optimal implements Guesser {
+
+    // null once off the tree
+    private DecisionTree.Node node;
+    // number of history entries already followed
+    private int seen;
+    private final Supplier<Guesser> fallbacks;
+    // created once off the tree
+    private Guesser fallback;
+
+    public Optimal(final DecisionTree tree) {
+        this(tree, FullEntropy::new);
+    }
+
+    /**
+     * @param fallbacks creates the guesser for histories that leave the tree, which must support {@link Guesser#fork()}
+     */
+    public Optimal(final DecisionTree tree, final Supplier<Guesser> fallbacks) {
+        this.node = Objects.requireNonNull(tree).root();
+        this.fallbacks = Objects.requireNonNull(fallbacks);
+    }
+
+    private Optimal(final Optimal other) {
+        this.node = other.node;
+        this.seen = other.seen;
+        this.fallbacks = other.fallbacks;
+        this.fallback = other.fallback == null ? null : other.fallback.fork().orElseThrow();
+    }
+
+    @Override
+    public Optional<Word> guess(final Deque<Guess> history) {
+        for (final var last : history.stream().skip(this.seen).toList()) {
+            this.node = this.node == null || last.id() != this.node.guess() ? null : this.node.child(last.pattern());
+        }
+        this.seen = history.size();
+        if (this.node != null) {
+            return Optional.of(Wordle.DICTIONARY.toWord(this.node.guess()));
+        }
+        if (this.fallback == null) {
+            this.fallback = this.fallbacks.get();
+        }
+        return this.fallback.guess(history);
+    }
+
+    @Override
+    public void finish(final long guesses) {
+        if (this.fallback != null) {
+            this.fallback.finish(guesses);
+        }
+    }
+
+    @Override
+    public Optional<Guesser> fork() {
+        return Optional.of(new Optimal(this));
+    }
+}
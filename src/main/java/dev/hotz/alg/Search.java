@@ -0,0 +1,212 @@
+package dev.hotz.alg;
+
+import java.util.Arrays;
+
+import dev.hotz.Bits;
+import dev.hotz.Columns;
+import dev.hotz.Metrics;
+import dev.hotz.PatternEngine;
+import dev.hotz.Wordle;
+import dev.hotz.Wordle.Word;
+
+/**
+ * Branch-and-bound search for the best guesses over the whole dictionary, see {@link FullEntropy}.
+ * <p>
+ * A candidate scores the entropy of its feedback (in bits) plus the probability that it is the answer.
+ * Instead of scoring all dictionary words against all remaining words, the remaining words are scored first and the
+ * other candidates are visited by descending upper bound of their score, until no bound exceeds the worst score
+ * kept. The bound is {@code min(log2(243), entropy of the answer, sum of the entropies of the single positions)}
+ * (the entropy of the pattern is at most the sum of the entropies of its digits).
+ * The digit distributions only need per-position letter weights of the remaining words, so bounding all candidates
+ * is linear in the dictionary.
+ */
+final class Search {
+
+    private static final double LN2 = Math.log(2);
+    private static final int LETTERS = 26;
+    // scores are computed differently from their bounds: prune candidates that could only be better by rounding
+    private static final double EPSILON = 1e-9;
+    // bounds are sorted as fixed point numbers with the id in the lower bits
+    private static final int ID_BITS = 20;
+    private static final double SCALE = 1L << 32;
+
+    static {
+        if (Wordle.DICTIONARY.size() > 1 << ID_BITS) {
+            throw new IllegalStateException("Dictionary too large: " + Wordle.DICTIONARY.size());
+        }
+    }
+
+    private Search() {
+        // hidden
+    }
+
+    /**
+     * Find the {@code k} best guesses if the answer is one of {@code remaining}.
+     * @param remaining bitset of the remaining dictionary ids
+     * @return up to {@code k} candidates by descending score; on equal scores the one visited first
+     *         (remaining words in id order, then by descending bound) comes first
+     */
+    static Scored[] top(final PatternEngine engine, final long[] remaining, final int k) {
+        final var answers = Columns.of(remaining);
+        if (answers.size() <= 1) {
+            return answers.size() == 0 ? new Scored[0] : new Scored[] { new Scored(answers.id(0), 1) };
+        }
+        final long total = answers.total();
+        final var top = new Top(k);
+
+        // remaining words first: only they get the probability bonus, so if they fill the top with scores beyond
+        // the cap of the entropy, no other word can beat them
+        final var kernel = Kernel.get();
+        for (int a = 0; a < answers.size(); a++) {
+            final int id = answers.id(a);
+            top.offer(id, kernel.entropy(engine, id, answers, total) + 1.0 * answers.count(a) / total);
+        }
+        final double cap = cap(answers, total);
+        if (top.isFull() && cap <= top.worst() + EPSILON) {
+            Metrics.scored(answers.size(), (long) answers.size() * answers.size());
+            return top.toArray();
+        }
+
+        final var bounds = bounds(answers, total, cap);
+        final var order = new long[bounds.length];
+        for (int id = 0; id < bounds.length; id++) {
+            // descending bound, ascending id
+            order[id] = (Long.MAX_VALUE >>> ID_BITS) - (long) (bounds[id] * SCALE) << ID_BITS | id;
+        }
+        Arrays.sort(order);
+        int scored = answers.size();
+        for (final long o : order) {
+            final int id = (int) (o & (1 << ID_BITS) - 1);
+            if (top.isFull() && bounds[id] <= top.worst() + EPSILON) {
+                break;
+            }
+            if (!Bits.get(remaining, id)) {
+                top.offer(id, kernel.entropy(engine, id, answers, total));
+                scored++;
+            }
+        }
+        Metrics.scored(scored, (long) scored * answers.size());
+        return top.toArray();
+    }
+
+    /**
+     * @return upper bound of the entropy for each dictionary id, which is its score if it is not a remaining word
+     */
+    private static double[] bounds(final Columns answers, final long total, final double cap) {
+        // weight of the remaining words with the letter at a position / anywhere
+        final var at = new long[Wordle.LENGTH][LETTERS];
+        final var contains = new long[LETTERS];
+        for (int k = 0; k < answers.size(); k++) {
+            final int word = Wordle.DICTIONARY.word(answers.id(k));
+            int letters = 0;
+            for (int i = 0; i < Wordle.LENGTH; i++) {
+                final int letter = Word.letterAt(word, i);
+                at[i][letter] += answers.count(k);
+                letters |= 1 << letter;
+            }
+            for (; letters != 0; letters &= letters - 1) {
+                contains[Integer.numberOfTrailingZeros(letters)] += answers.count(k);
+            }
+        }
+
+        final var bounds = new double[Wordle.DICTIONARY.size()];
+        for (int id = 0; id < bounds.length; id++) {
+            final int word = Wordle.DICTIONARY.word(id);
+            double sum = 0;
+            for (int i = 0; i < Wordle.LENGTH; i++) {
+                final int letter = Word.letterAt(word, i);
+                final double green = 1.0 * at[i][letter] / total;
+                if (isUnique(word, i)) {
+                    // exact: the only copy of the letter in the guess is misplaced iff the answer has it elsewhere
+                    final double misplaced = 1.0 * (contains[letter] - at[i][letter]) / total;
+                    sum += h(green) + h(misplaced) + h(1 - green - misplaced);
+                } else {
+                    // green or not, and at most one bit for misplaced or wrong
+                    sum += h(green) + h(1 - green) + (1 - green);
+                }
+            }
+            bounds[id] = Math.min(cap, sum);
+        }
+        return bounds;
+    }
+
+    /**
+     * @return upper bound of the entropy of any guess: the feedback is a function of the answer, so it carries
+     *         at most the entropy of the answer, and there are only 243 patterns
+     */
+    private static double cap(final Columns answers, final long total) {
+        return Math.min(Math.log(Kernel.NUM_PATTERNS) / LN2, entropy(answers, total));
+    }
+
+    /**
+     * @return entropy of the answer (in bits), weighted by the counts of {@code answers} summing up to {@code total}
+     */
+    static double entropy(final Columns answers, final long total) {
+        double entropy = 0;
+        for (int k = 0; k < answers.size(); k++) {
+            entropy += h(1.0 * answers.count(k) / total);
+        }
+        return entropy;
+    }
+
+    private static boolean isUnique(final int word, final int i) {
+        for (int j = 0; j < Wordle.LENGTH; j++) {
+            if (j != i && Word.letterAt(word, j) == Word.letterAt(word, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // -p*log2(p)
+    private static double h(final double p) {
+        return p <= 0 ? 0 : -p * (Math.log(p) / LN2);
+    }
+
+    record Scored(int word, double score) {
+    }
+
+    /**
+     * The {@code k} best candidates offered so far, by descending score and in offer order on equal scores.
+     */
+    private static final class Top {
+
+        private final int[] words;
+        private final double[] scores;
+        private int size;
+
+        private Top(final int k) {
+            this.words = new int[k];
+            this.scores = new double[k];
+        }
+
+        private boolean isFull() {
+            return this.size == this.words.length;
+        }
+
+        private double worst() {
+            return this.scores[this.size - 1];
+        }
+
+        private void offer(final int word, final double score) {
+            if (isFull() && !(score > worst())) {
+                return;
+            }
+            int i = isFull() ? this.size - 1 : this.size++;
+            for (; i > 0 && score > this.scores[i - 1]; i--) {
+                this.words[i] = this.words[i - 1];
+                this.scores[i] = this.scores[i - 1];
+            }
+            this.words[i] = word;
+            this.scores[i] = score;
+        }
+
+        private Scored[] toArray() {
+            final var top = new Scored[this.size];
+            for (int i = 0; i < this.size; i++) {
+                top[i] = new Scored(this.words[i], this.scores[i]);
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package dev.hotz.alg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import dev.hotz.Patterns;
+import dev.hotz.Wordle;
+
+/**
+ * Exact search for the decision tree with the minimum total (i.e. expected) number of guesses over a set of
+ * equally likely answers, with at most {@code maxGuesses} guesses per answer.
+ * <p>
+ * A set of answers costs its size (every answer takes the next guess) plus the cost of the sets the feedback
+ * splits it into. Per set only the {@code topK} guesses that split it best (most distinct patterns, then smallest
+ * sum of squared set sizes) are tried, so the tree is optimal among those; a guess among the answers that splits
+ * them completely is always optimal and ends the search of a set.
+ * The search is a depth-first branch and bound: a set of {@code n} answers costs at least {@code 2n - 1} (at most
+ * one is found with the first guess, and more than 242 can not be found with the second), and a guess is dropped
+ * as soon as the cost of its split sets so far plus the bounds of the rest reaches the best guess so far.
+ * Sets are memoized by their sorted ids and the guesses left, so that sets reached by different histories are
+ * solved once; a memo entry is either the exact cost and best guess, or a lower bound from a dropped search.
+ * The split sets of large sets are solved in parallel on the pool, if any.
+ * <p>
+ * The exact entries of large sets are written to a checkpoint file every {@code checkpointInterval} ms, from which
+ * an interrupted search resumes.
+ */
+public final class Solver {
+
+    // cost of a set that can not be solved with the guesses left, without overflowing when added up
+    private static final int INFEASIBLE = Integer.MAX_VALUE / 4;
+    // below this many answers the split sets are solved serially
+    private static final int PARALLEL_THRESHOLD = 64;
+    // smaller sets are cheap to solve again, so they are not checkpointed
+    private static final int CHECKPOINT_MIN_SIZE = 16;
+
+    // "JSOL"
+    private static final int MAGIC = 0x4a534f4c;
+    private static final int VERSION = 1;
+
+    private final ForkJoinPool pool;
+    private final int topK;
+    private final int maxGuesses;
+    private final Path checkpoint;
+    private final long checkpointInterval;
+
+    private final Map<Key, Entry> memo = new ConcurrentHashMap<>();
+    private final ReentrantLock saving = new ReentrantLock();
+    private final AtomicLong nextCheckpoint = new AtomicLong();
+
+    /**
+     * @param pool pool to solve on, or {@code null} to solve serially
+     * @param topK number of guesses to try per set
+     * @param checkpoint file to resume from and to save progress to, or {@code null}
+     * @param checkpointInterval ms between checkpoints
+     */
+    public Solver(final ForkJoinPool pool, final int topK, final int maxGuesses, final Path checkpoint, final long checkpointInterval) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be positive, was: " + topK);
+        }
+        this.pool = pool;
+        this.topK = topK;
+        this.maxGuesses = maxGuesses;
+        this.checkpoint = checkpoint;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Compute the optimal tree for {@code answers}, resuming from the checkpoint if there is one for them.
+     * @param answers sorted dictionary ids of the answers
+     * @throws IllegalStateException if the answers can not all be found within {@code maxGuesses}
+     */
+    public DecisionTree solve(final int[] answers) throws IOException {
+        if (this.checkpoint != null) {
+            resume();
+        }
+        this.nextCheckpoint.set(System.currentTimeMillis() + this.checkpointInterval);
+        final var task = ForkJoinTask.adapt(() -> solve(answers, this.maxGuesses, INFEASIBLE));
+        final int cost = this.pool != null ? this.pool.invoke(task) : task.invoke();
+        if (cost >= INFEASIBLE) {
+            throw new IllegalStateException("Answers can not be found within " + this.maxGuesses + " guesses");
+        }
+        return new DecisionTree(node(answers, this.maxGuesses), DecisionTree.fingerprint(answers), cost);
+    }
+
+    /**
+     * @param set sorted dictionary ids of the answers
+     * @param guesses number of guesses left
+     * @param beta cost to beat
+     * @return the cost if it is less than {@code beta}, a lower bound of at least {@code beta} otherwise
+     */
+    private int solve(final int[] set, final int guesses, final int beta) {
+        final int n = set.length;
+        if (n == 1) {
+            return guesses >= 1 ? 1 : INFEASIBLE;
+        }
+        if (guesses <= 1) {
+            return INFEASIBLE;
+        }
+        if (n == 2) {
+            // one of them, then the other
+            return 3;
+        }
+        int lower = lowerBound(n);
+        if (lower >= beta) {
+            return lower;
+        }
+        final var key = new Key(set, guesses);
+        final var known = this.memo.get(key);
+        if (known != null) {
+            if (known.exact() || known.cost() >= beta) {
+                return known.cost();
+            }
+            lower = Math.max(lower, known.cost());
+        }
+
+        int best = beta;
+        int bestGuess = -1;
+        for (final int guess : candidates(set)) {
+            final int cost = evaluate(guess, set, guesses, best);
+            if (cost < best) {
+                best = cost;
+                bestGuess = guess;
+                if (best <= lower) {
+                    break;
+                }
+            }
+        }
+        if (bestGuess < 0) {
+            // no guess beats beta
+            this.memo.merge(key, new Entry(beta, -1), (a, b) -> a.exact() || a.cost() >= b.cost() ? a : b);
+            return beta;
+        }
+        this.memo.put(key, new Entry(best, bestGuess));
+        if (n >= CHECKPOINT_MIN_SIZE) {
+            checkpoint();
+        }
+        return best;
+    }
+
+    /**
+     * @return cost of {@code set} if {@code guess} is played next, or a lower bound of at least {@code best} if it
+     *         does not beat it
+     */
+    private int evaluate(final int guess, final int[] set, final int guesses, final int best) {
+        final var split = split(guess, set);
+        int bound = set.length;
+        for (final var s : split) {
+            bound += lowerBound(s.length);
+        }
+        if (bound >= best) {
+            return bound;
+        }
+
+        if (this.pool != null && set.length >= PARALLEL_THRESHOLD) {
+            final var tasks = new ArrayList<RecursiveTask<Integer>>(split.size());
+            for (final var s : split) {
+                final int budget = best - (bound - lowerBound(s.length));
+                tasks.add(new SolveTask(s, guesses - 1, budget));
+            }
+            long total = set.length;
+            for (final var task : ForkJoinTask.invokeAll(tasks)) {
+                total += task.join();
+            }
+            return (int) Math.min(total, INFEASIBLE);
+        }
+
+        int total = bound;
+        for (final var s : split) {
+            total -= lowerBound(s.length);
+            total = Math.min(total + solve(s, guesses - 1, best - total), INFEASIBLE);
+            if (total >= best) {
+                return total;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the sets (sorted ids) {@code set} is split into by the feedback to {@code guess}, except the guess
+     *         itself, largest first
+     */
+    private static List<int[]> split(final int guess, final int[] set) {
+        final var patterns = new int[set.length];
+        final var sizes = new int[Kernel.NUM_PATTERNS];
+        for (int k = 0; k < set.length; k++) {
+            patterns[k] = Patterns.get(guess, set[k]);
+            sizes[patterns[k]]++;
+        }
+        final var sets = new int[Kernel.NUM_PATTERNS][];
+        final var split = new ArrayList<int[]>();
+        // pattern 0 (all correct) is found
+        for (int p = 1; p < sizes.length; p++) {
+            if (sizes[p] > 0) {
+                sets[p] = new int[sizes[p]];
+                split.add(sets[p]);
+                sizes[p] = 0;
+            }
+        }
+        for (int k = 0; k < set.length; k++) {
+            if (patterns[k] != 0) {
+                sets[patterns[k]][sizes[patterns[k]]++] = set[k];
+            }
+        }
+        split.sort((a, b) -> Integer.compare(b.length, a.length));
+        return split;
+    }
+
+    /**
+     * @return the guesses to try for {@code set}, best split first
+     */
+    private int[] candidates(final int[] set) {
+        final var patterns = new boolean[Kernel.NUM_PATTERNS];
+        final var sizes = new int[Kernel.NUM_PATTERNS];
+        // a guess among the answers that splits them completely can not be beaten
+        for (final int guess : set) {
+            if (distinct(guess, set, patterns) == set.length) {
+                return new int[] { guess };
+            }
+        }
+
+        final var top = new long[this.topK];
+        int size = 0;
+        for (int guess = 0; guess < Wordle.DICTIONARY.size(); guess++) {
+            Arrays.fill(sizes, 0);
+            int distinct = 0;
+            long squares = 0;
+            for (final int answer : set) {
+                final int p = Patterns.get(guess, answer);
+                distinct += sizes[p] == 0 ? 1 : 0;
+                squares += 2L * sizes[p]++ + 1;
+            }
+            if (distinct == 1) {
+                continue;
+            }
+            final boolean among = Arrays.binarySearch(set, guess) >= 0;
+            // ascending order is best first: most patterns, least squares, among the answers, smallest id
+            final long rank = (long) (Kernel.NUM_PATTERNS - distinct) << 52 | Math.min(squares, (1L << 30) - 1) << 22
+                    | (among ? 0L : 1L << 21) | guess;
+            if (size < top.length) {
+                top[size++] = rank;
+                Arrays.sort(top, 0, size);
+            } else if (rank < top[size - 1]) {
+                int i = size - 1;
+                for (; i > 0 && rank < top[i - 1]; i--) {
+                    top[i] = top[i - 1];
+                }
+                top[i] = rank;
+            }
+        }
+        final var guesses = new int[size];
+        for (int i = 0; i < size; i++) {
+            guesses[i] = (int) (top[i] & (1 << 21) - 1);
+        }
+        return guesses;
+    }
+
+    private static int distinct(final int guess, final int[] set, final boolean[] seen) {
+        Arrays.fill(seen, false);
+        int distinct = 0;
+        for (final int answer : set) {
+            final int p = Patterns.get(guess, answer);
+            if (!seen[p]) {
+                seen[p] = true;
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * @return lower bound of the cost of a set of {@code n} answers: one may be found with the first guess, at most
+     *         242 more with the second, the rest take at least three
+     */
+    private static int lowerBound(final int n) {
+        final int second = Math.min(n - 1, Kernel.NUM_PATTERNS - 1);
+        return 1 + 2 * second + 3 * (n - 1 - second);
+    }
+
+    /**
+     * @return tree of the memoized best guesses for {@code set}
+     */
+    private DecisionTree.Node node(final int[] set, final int guesses) {
+        final int guess;
+        if (set.length <= 2) {
+            guess = set[0];
+        } else {
+            final var key = new Key(set, guesses);
+            if (!this.memo.containsKey(key) || !this.memo.get(key).exact()) {
+                // below a set resumed from the checkpoint
+                solve(set, guesses, INFEASIBLE);
+            }
+            guess = this.memo.get(key).guess();
+        }
+        final var split = split(guess, set);
+        split.sort((a, b) -> Integer.compare(Patterns.get(guess, a[0]), Patterns.get(guess, b[0])));
+        final var patterns = new byte[split.size()];
+        final var children = new DecisionTree.Node[split.size()];
+        for (int c = 0; c < children.length; c++) {
+            patterns[c] = (byte) Patterns.get(guess, split.get(c)[0]);
+            children[c] = node(split.get(c), guesses - 1);
+        }
+        return new DecisionTree.Node(guess, patterns, children);
+    }
+
+    /**
+     * Save the exact memo entries of large sets, if the checkpoint is due and no other thread is saving.
+     */
+    private void checkpoint() {
+        final long now = System.currentTimeMillis();
+        if (this.checkpoint == null || now < this.nextCheckpoint.get() || !this.saving.tryLock()) {
+            return;
+        }
+        try {
+            save();
+            this.nextCheckpoint.set(System.currentTimeMillis() + this.checkpointInterval);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save checkpoint " + this.checkpoint, e);
+        } finally {
+            this.saving.unlock();
+        }
+    }
+
+    private void save() throws IOException {
+        final var dir = this.checkpoint.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        final var entries = this.memo.entrySet().stream()
+                .filter(e -> e.getValue().exact() && e.getKey().set.length >= CHECKPOINT_MIN_SIZE)
+                .toList();
+        final var tmp = Files.createTempFile(dir, "solver", ".tmp");
+        try {
+            try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(Wordle.DICTIONARY.fingerprint());
+                out.writeInt(this.topK);
+                out.writeInt(this.maxGuesses);
+                out.writeInt(entries.size());
+                for (final var e : entries) {
+                    out.writeByte(e.getKey().guesses);
+                    out.writeInt(e.getKey().set.length);
+                    for (final int id : e.getKey().set) {
+                        out.writeInt(id);
+                    }
+                    out.writeInt(e.getValue().cost());
+                    out.writeInt(e.getValue().guess());
+                }
+            }
+            Files.move(tmp, this.checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        System.err.printf("checkpoint: %d sets saved%n", entries.size());
+    }
+
+    /**
+     * Load the entries of the checkpoint, if it is for the same dictionary and search. Entries are keyed by their
+     * set, so they hold for any answers.
+     */
+    private void resume() throws IOException {
+        if (!Files.isRegularFile(this.checkpoint)) {
+            return;
+        }
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.checkpoint)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != Wordle.DICTIONARY.fingerprint()
+                    || in.readInt() != this.topK || in.readInt() != this.maxGuesses) {
+                return;
+            }
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final int guesses = in.readUnsignedByte();
+                final var set = new int[in.readInt()];
+                for (int k = 0; k < set.length; k++) {
+                    set[k] = in.readInt();
+                }
+                this.memo.put(new Key(set, guesses), new Entry(in.readInt(), in.readInt()));
+            }
+            System.err.printf("resumed: %d sets%n", size);
+        }
+    }
+
+    private final class SolveTask extends RecursiveTask<Integer> {
+
+        private final int[] set;
+        private final int guesses;
+        private final int beta;
+
+        private SolveTask(final int[] set, final int guesses, final int beta) {
+            this.set = set;
+            this.guesses = guesses;
+            this.beta = beta;
+        }
+
+        @Override
+        protected Integer compute() {
+            return solve(this.set, this.guesses, this.beta);
+        }
+    }
+
+    /**
+     * @param guess best guess, or {@code -1} if {@code cost} is only a lower bound
+     */
+    private record Entry(int cost, int guess) {
+
+        private boolean exact() {
+            return this.guess >= 0;
+        }
+    }
+
+    private static final class Key {
+
+        // sorted dictionary ids
+        private final int[] set;
+        private final int guesses;
+        private final int hash;
+
+        private Key(final int[] set, final int guesses) {
+            this.set = Objects.requireNonNull(set);
+            this.guesses = guesses;
+            this.hash = 31 * Arrays.hashCode(set) + guesses;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || o instanceof final Key key && this.guesses == key.guesses && Arrays.equals(this.set, key.set);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import dev.hotz.Wordle.Correctness;
 import dev.hotz.Wordle.Word;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -72,6 +73,68 @@ public class TestCorrectness {
         noMatch("aaabb", "WWWWW", "eeefa");
     }
 
+    @Test
+    void testPatternMatrix() {
+        // guess, answer, feedback
+        final var cases = new String[][] {
+                { "tares", "cigar", "WMMWW" },
+                { "tares", "rebut", "MWMMW" },
+                { "tares", "tares", "CCCCC" },
+                { "tares", "eerie", "WWCMW" },
+                { "salet", "eerie", "WWWMW" },
+                { "which", "cigar", "WWMMW" },
+                { "which", "zymic", "WWMMW" },
+                { "zymic", "cigar", "WWWMM" },
+                // repeated letters: only as many are marked as the other word has
+                { "aahed", "cigar", "MWWWW" },
+                { "aahed", "eerie", "WWWMW" },
+                { "aahed", "zymic", "WWWWW" },
+                { "eerie", "aahed", "MWWWW" },
+                { "eerie", "rebut", "WCMWW" },
+                { "eerie", "tares", "MWCWW" },
+                { "eerie", "eerie", "CCCCC" },
+        };
+        for (final var c : cases) {
+            final var g = new Word(c[0]);
+            final var a = new Word(c[1]);
+            final int expected = Correctness.idx(Correctness.maskOf(c[2]));
+            assertEquals(expected, Patterns.get(Wordle.DICTIONARY.id(g), Wordle.DICTIONARY.id(a)), c[0] + " " + c[1]);
+            assertEquals(expected, Patterns.pattern(a, g), c[0] + " " + c[1]);
+        }
+    }
+
+    @Test
+    void testFilter() {
+        // "zzzzz" is not in the dictionary and takes the slow path
+        for (final var guess : new String[] { "tares", "eerie", "zzzzz" }) {
+            for (final var mask : new String[] { "WWWWW", "MWWWC", "WMWWW" }) {
+                final var g = new Guesser.Guess(new Word(guess), Correctness.maskOf(mask));
+                final var remaining = Bits.all(Wordle.DICTIONARY.size());
+                g.filter(remaining);
+                for (int a = 0; a < Wordle.DICTIONARY.size(); a++) {
+                    assertEquals(g.matches(a), Bits.get(remaining, a));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPatternEngines() {
+        final var vector = PatternEngine.vector();
+        assertTrue(vector.isPresent(), "tests run with jdk.incubator.vector");
+        final var answers = Columns.of(Bits.all(Wordle.DICTIONARY.size()));
+        final var expected = new byte[answers.size()];
+        final var actual = new byte[answers.size()];
+        for (final var guess : new String[] { "tares", "eerie", "aahed", "mamma" }) {
+            final int g = Wordle.DICTIONARY.id(new Word(guess));
+            PatternEngine.matrix().patterns(g, answers, expected);
+            for (final var engine : new PatternEngine[] { PatternEngine.scalar(), vector.get() }) {
+                engine.patterns(g, answers, actual);
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+
     private void matches(final String guess, final String mask, final String answer) {
         final var m = Correctness.maskOf(mask);
         assertTrue(new Guesser.Guess(new Word(guess), m).matches(new Word(answer)));
@@ -1,13 +1,46 @@
 package dev.hotz;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
+import dev.hotz.Guesser.Guess;
+import dev.hotz.Wordle.Correctness;
 import dev.hotz.Wordle.Word;
+import dev.hotz.alg.Adversary;
+import dev.hotz.alg.Anytime;
+import dev.hotz.alg.DecisionTree;
+import dev.hotz.alg.Entropy;
+import dev.hotz.alg.FullEntropy;
+import dev.hotz.alg.Lookahead;
+import dev.hotz.alg.MostFreq;
+import dev.hotz.alg.MultiEntropy;
+import dev.hotz.alg.Openers;
+import dev.hotz.alg.Optimal;
+import dev.hotz.alg.Solver;
+import picocli.CommandLine;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestWordle {
 
@@ -53,4 +86,382 @@ public class TestWordle {
         assertEquals(OptionalInt.of(6), w.play(new Word("right"), g));
     }
 
+    @Test
+    void testEntropyParallelMatchesSerial() {
+        final var w = new Wordle();
+        final var pool = new ForkJoinPool(4);
+        try {
+            for (final var answer : new String[] { "cigar", "rebut", "sissy", "humph", "awake" }) {
+                final var a = new Word(answer);
+                assertEquals(w.play(a, new Entropy()), w.play(a, new Entropy(pool, 1)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testJobsMatchSerial() {
+        final var serial = report("-t", "1", "-j", "1", "100");
+        assertTrue(serial.contains("avg score: "));
+        assertEquals(serial, report("-t", "1", "-j", "4", "100"));
+    }
+
+    /**
+     * @return what a run of the CLI with {@code args} printed to stderr, i.e. its report
+     */
+    private static String report(final String... args) {
+        final var err = System.err;
+        final var out = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(out));
+        try {
+            assertEquals(0, new CommandLine(new WordleCLI()).execute(args));
+        } finally {
+            System.setErr(err);
+        }
+        return out.toString();
+    }
+
+    @Test
+    void testPlayAllMatchesPlay() {
+        final var w = new Wordle();
+        final var answers = Stream.of("cigar", "rebut", "sissy", "humph", "awake", "blush", "focal", "evade")
+                .map(Word::new)
+                .toArray(Word[]::new);
+        final var entropy = w.playAll(answers, new Entropy());
+        final var mostFreq = w.playAll(answers, new MostFreq());
+        final var fullEntropy = w.playAll(answers, new FullEntropy());
+        final var lookahead = w.playAll(answers, new Lookahead());
+        for (int i = 0; i < answers.length; i++) {
+            assertEquals(w.play(answers[i], new Entropy()), entropy[i]);
+            assertEquals(w.play(answers[i], new MostFreq()), mostFreq[i]);
+            assertEquals(w.play(answers[i], new FullEntropy()), fullEntropy[i]);
+            assertEquals(w.play(answers[i], new Lookahead()), lookahead[i]);
+        }
+    }
+
+    @Test
+    void testLookaheadNoWorseThanFullEntropy() {
+        final var w = new Wordle();
+        final var answers = Arrays.copyOf(Wordle.answers(), 300);
+        // a lost game counts one more guess than allowed
+        final long fullEntropy = Arrays.stream(w.playAll(answers, new FullEntropy())).mapToInt(r -> r.orElse(Wordle.MAX_GUESSES + 1)).sum();
+        final long lookahead = Arrays.stream(w.playAll(answers, new Lookahead())).mapToInt(r -> r.orElse(Wordle.MAX_GUESSES + 1)).sum();
+        assertTrue(lookahead <= fullEntropy, lookahead + " > " + fullEntropy);
+    }
+
+    @Test
+    void testCompiledDictionary() throws IOException {
+        final var compiled = CompiledDictionary.load().orElseThrow();
+        final var parsed = Wordle.parseDict();
+        assertEquals(parsed.size(), compiled.dictionary().size());
+        for (int id = 0; id < parsed.size(); id++) {
+            assertEquals(parsed.word(id), compiled.dictionary().word(id));
+            assertEquals(parsed.count(id), compiled.dictionary().count(id));
+        }
+        assertEquals(parsed.fingerprint(), compiled.dictionary().fingerprint());
+        assertArrayEquals(Arrays.stream(Wordle.parseAnswers()).mapToInt(parsed::id).toArray(), compiled.answers());
+
+        final var out = Files.createTempDirectory("compiled");
+        final var file = out.resolve(CompiledDictionary.RESOURCE);
+        try {
+            CompiledDictionary.main("src/main/resources", out.toString());
+            try (final var in = CompiledDictionary.class.getClassLoader().getResourceAsStream(CompiledDictionary.RESOURCE)) {
+                assertArrayEquals(in.readAllBytes(), Files.readAllBytes(file));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(out);
+        }
+    }
+
+    @Test
+    void testCompiledDictionaryMalformed() throws IOException {
+        assertTrue(compileError("cigar 3\nrebut x\n", "cigar\n").contains("dictionary.txt:2: invalid count: 'rebut x'"));
+        assertTrue(compileError("# comment\ncigar 3\ncigars 2\n", "cigar\n").contains("dictionary.txt:3: invalid word: 'cigars 2'"));
+        assertTrue(compileError("cigar 3\nrebut 2\ncigar 1\n", "cigar\n").contains("dictionary.txt:3: duplicate of line 1: 'cigar 1'"));
+        assertTrue(compileError("cigar 3\nrebut 2\n", "cigar\nsissy\n").contains("answers.txt:2: answer is not in the dictionary: 'sissy'"));
+    }
+
+    /**
+     * @return message of the error compiling the word lists
+     */
+    private static String compileError(final String dictionary, final String answers) throws IOException {
+        final var dir = Files.createTempDirectory("words");
+        final var files = Stream.of("dictionary.txt", "answers.txt", CompiledDictionary.RESOURCE).map(dir::resolve).toList();
+        try {
+            Files.writeString(files.get(0), dictionary);
+            Files.writeString(files.get(1), answers);
+            return assertThrows(IllegalArgumentException.class, () -> CompiledDictionary.main(dir.toString(), dir.toString())).getMessage();
+        } finally {
+            for (final var file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    void testOptimalTree() throws IOException {
+        final var w = new Wordle();
+        final var answers = Arrays.copyOf(Wordle.answers(), 200);
+        final var ids = Arrays.stream(answers).mapToInt(Wordle.DICTIONARY::id).sorted().toArray();
+        final var tree = new Solver(null, 4, Wordle.MAX_GUESSES, null, Long.MAX_VALUE).solve(ids);
+
+        final var file = Files.createTempFile("tree", ".bin");
+        try {
+            tree.save(file);
+            final var loaded = DecisionTree.load(file, ids).orElseThrow();
+            long total = 0;
+            for (final var result : w.playAll(answers, new Optimal(loaded))) {
+                total += result.orElseThrow();
+            }
+            assertEquals(tree.cost(), total);
+
+            // an answer the tree was not computed for is found by the fallback, which is finished with the game
+            final var finished = new AtomicLong();
+            final var fallback = new Guesser() {
+                private final Guesser delegate = new FullEntropy();
+
+                @Override
+                public Optional<Word> guess(final Deque<Guess> history) {
+                    return this.delegate.guess(history);
+                }
+
+                @Override
+                public void finish(final long guesses) {
+                    finished.set(guesses);
+                    this.delegate.finish(guesses);
+                }
+            };
+            final var off = Wordle.answers()[answers.length];
+            assertTrue(Arrays.binarySearch(ids, Wordle.DICTIONARY.id(off)) < 0);
+            final var result = w.play(off, new Optimal(loaded, () -> fallback));
+            assertTrue(result.isPresent());
+            assertEquals(result.getAsInt(), finished.get());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testOpeningBook() throws IOException {
+        final var file = Files.createTempFile("book", ".bin");
+        Files.delete(file);
+        try {
+            final var book = OpeningBook.load(file, "entropy", 2, 100);
+            new Wordle().playAll(Arrays.copyOf(Wordle.answers(), 50), book.wrap(new Entropy()), 3);
+            assertTrue(book.size() > 1);
+            // one miss per distinct history, as the tree asks for each once
+            assertEquals(0, book.hits());
+            assertEquals(book.size(), book.misses());
+            book.save();
+
+            final var loaded = OpeningBook.load(file, "entropy", 2, 100);
+            assertEquals(book.size(), loaded.size());
+            final var history = new ArrayDeque<Guess>();
+            assertEquals(OptionalInt.of(Wordle.DICTIONARY.id(new Word("tares"))), loaded.lookup(history));
+            history.add(new Guess(new Word("tares"), Correctness.maskOf("WWWWW")));
+            assertEquals(new Entropy().guess(history).map(Wordle.DICTIONARY::id).orElseThrow(), loaded.lookup(history).orElseThrow());
+            history.add(new Guess(new Word("tares"), Correctness.maskOf("WWWWW")));
+            assertTrue(loaded.lookup(history).isEmpty());
+            assertEquals(2, loaded.hits());
+            assertEquals(1, loaded.misses());
+
+            // another algorithm or dictionary
+            assertEquals(0, OpeningBook.load(file, "mostfreq", 2, 100).size());
+            final var bytes = Files.readAllBytes(file);
+            // the fingerprint follows magic and version
+            bytes[8] ^= 1;
+            Files.write(file, bytes);
+            assertEquals(0, OpeningBook.load(file, "entropy", 2, 100).size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testOpeningBookEviction() {
+        final var book = OpeningBook.load(Path.of("unused"), "entropy", 1, 2);
+        final var history = new ArrayDeque<Guess>();
+        book.put(history, 0);
+        final var words = new String[] { "cigar", "rebut", "sissy" };
+        for (final var word : words) {
+            history.clear();
+            history.add(new Guess(new Word(word), Correctness.maskOf("WWWWW")));
+            book.put(history, 1);
+        }
+        // pinned first guess and the two most recent deeper ones
+        assertEquals(3, book.size());
+        assertTrue(book.lookup(new ArrayDeque<>()).isPresent());
+        history.clear();
+        history.add(new Guess(new Word("cigar"), Correctness.maskOf("WWWWW")));
+        assertTrue(book.lookup(history).isEmpty());
+
+        // rebut was used more recently than sissy, so sissy goes
+        history.clear();
+        history.add(new Guess(new Word("rebut"), Correctness.maskOf("WWWWW")));
+        assertTrue(book.lookup(history).isPresent());
+        history.clear();
+        history.add(new Guess(new Word("humph"), Correctness.maskOf("WWWWW")));
+        book.put(history, 1);
+        assertEquals(3, book.size());
+        history.clear();
+        history.add(new Guess(new Word("sissy"), Correctness.maskOf("WWWWW")));
+        assertTrue(book.lookup(history).isEmpty());
+    }
+
+    @Test
+    void testOpeningBookResume() {
+        final var answers = Arrays.copyOf(Wordle.answers(), 30);
+        final var book = OpeningBook.load(Path.of("unused"), "entropy", 3, 100);
+        // only the first two guesses are booked
+        new Wordle().playAll(answers, book.wrap(new Entropy()), 2);
+        final long misses = book.misses();
+        for (final var answer : answers) {
+            // the guesser is asked first with the two booked guesses unseen in the history
+            final var booked = book.wrap(new Entropy());
+            final var plain = new Entropy();
+            final var history = new ArrayDeque<Guess>();
+            for (int i = 0; i < Wordle.MAX_GUESSES; i++) {
+                final var guess = booked.guess(history).orElseThrow();
+                assertEquals(plain.guess(history).orElseThrow(), guess);
+                if (guess.equals(answer)) {
+                    break;
+                }
+                history.add(new Guess(guess, Correctness.pattern(answer, guess)));
+            }
+        }
+        assertTrue(book.misses() > misses);
+    }
+
+    @Test
+    void testServer() {
+        final var server = new Server(Entropy::new);
+        assertEquals("tares", server.answer(""));
+        final var history = new ArrayDeque<Guess>();
+        history.add(new Guess(new Word("tares"), Correctness.maskOf("WWMWC")));
+        assertEquals(new Entropy().guess(history).orElseThrow().toString(), server.answer(" tares  WWMWC "));
+        assertEquals("ERR expected pairs of guess and mask, got: tares", server.answer("tares"));
+        assertEquals("ERR Invalid shorthand character: 88", server.answer("tares XXXXX"));
+    }
+
+    @Test
+    void testBatch() throws IOException {
+        final var results = new Results(Wordle.MAX_GUESSES);
+        final var ndjson = new StringWriter();
+        new Batch(Entropy::new, 2, results, ndjson).run(new BufferedReader(new StringReader("cigar\n# comment\n\nbad\nzzzzz\nrebut\nsissy\n")), 2);
+        assertEquals(2, results.played());
+        final var lines = ndjson.toString().lines().sorted().toList();
+        assertEquals(2, lines.size());
+        final var cigar = new Wordle().play(new Word("cigar"), new Entropy()).orElseThrow();
+        assertTrue(lines.get(0).startsWith("{\"index\":0,\"answer\":\"cigar\",\"solved\":true,\"guesses\":" + cigar + ",\"ms\":["));
+        assertTrue(lines.get(1).startsWith("{\"index\":1,\"answer\":\"rebut\","));
+    }
+
+    @Test
+    void testShardMerge() throws IOException {
+        final var w = new Wordle();
+        final var games = Arrays.copyOf(Wordle.answers(), 10);
+        final var all = new Results(Wordle.MAX_GUESSES);
+        final var files = new ArrayList<Path>();
+        try {
+            for (int i = 0; i < 2; i++) {
+                final var shard = new Shard("entropy", i, 2, games.length);
+                for (final int g : shard.remaining()) {
+                    final var result = w.play(games[g], new Entropy());
+                    shard.record(g, result);
+                    all.record(result);
+                }
+                files.add(Files.createTempFile("shard", ".bin"));
+                shard.save(files.get(i));
+                // resuming a finished shard leaves nothing to play
+                assertEquals(5, new Shard("entropy", i, 2, games.length).resume(files.get(i)));
+            }
+            final var expected = new ByteArrayOutputStream();
+            all.printReport(new PrintStream(expected), games.length);
+            final var merged = new ByteArrayOutputStream();
+            Shard.merge(files, new PrintStream(merged));
+            assertEquals(expected.toString(), merged.toString());
+        } finally {
+            for (final var file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void testMetrics() {
+        new Wordle().play(new Word("cigar"), Metrics.instrument("entropy", new Entropy()));
+        final var json = Metrics.toJson();
+        assertTrue(json.contains("{\"turn\": 1, \"guesses\": "));
+        assertFalse(json.contains("\"candidates_scored\": 0,"));
+    }
+
+    @Test
+    void testRankOpeners() {
+        final var answers = Arrays.copyOf(Wordle.answers(), 50);
+        final var ranked = new Openers(null, PatternEngine.matrix())
+                .rank(answers, o -> new Entropy(null, Integer.MAX_VALUE, PatternEngine.matrix(), o), 3);
+        assertEquals(Wordle.DICTIONARY.size(), ranked.size());
+        assertTrue(ranked.subList(0, 3).stream().allMatch(o -> o.games() == answers.length));
+        assertTrue(ranked.subList(3, ranked.size()).stream().allMatch(o -> o.games() == 0));
+        assertTrue(ranked.get(0).score() <= ranked.get(2).score());
+
+        final var opener = Wordle.DICTIONARY.toWord(ranked.get(0).id());
+        assertEquals(opener, new Entropy(null, Integer.MAX_VALUE, PatternEngine.matrix(), opener).guess(new ArrayDeque<>()).orElseThrow());
+    }
+
+    @Test
+    void testBoards() {
+        final var answers = new Word[] { new Word("cigar"), new Word("rebut"), new Word("sissy"), new Word("humph") };
+        final var result = new Wordle(9).playBoards(answers, new MultiEntropy());
+        assertTrue(result.isPresent());
+        assertTrue(result.getAsInt() >= answers.length && result.getAsInt() <= 9);
+        // no guesses left for the last board
+        assertTrue(new Wordle(3).playBoards(answers, new MultiEntropy()).isEmpty());
+    }
+
+    @Test
+    void testAnytime() {
+        for (final var answer : Arrays.copyOf(Wordle.answers(), 20)) {
+            final var unlimited = new Anytime.Budget(Double.POSITIVE_INFINITY);
+            assertEquals(new Wordle().play(answer, new Entropy()),
+                    new Wordle().play(answer, new Anytime(PatternEngine.matrix(), new Word(Entropy.DEFAULT_OPENER), unlimited)));
+            assertEquals(0, unlimited.expired());
+        }
+        // out of time after the first candidate, still a valid guess
+        final var budget = new Anytime.Budget(1e-6);
+        assertTrue(new Wordle().play(new Word("cigar"), new Anytime(PatternEngine.matrix(), new Word(Entropy.DEFAULT_OPENER), budget)).isPresent());
+        assertTrue(budget.expired() > 0);
+    }
+
+    @Test
+    void testAdversary() {
+        final var words = Arrays.copyOf(Wordle.answers(), 200);
+        final var answers = Arrays.stream(words).mapToInt(Wordle.DICTIONARY::id).sorted().toArray();
+        final var results = new Wordle(Adversary.LIMIT).playAll(words, new MostFreq());
+        final int max = Arrays.stream(results).mapToInt(OptionalInt::getAsInt).max().orElseThrow();
+
+        final var pool = new ForkJoinPool(2);
+        try {
+            final var adversary = new Adversary(pool, answers, new MostFreq());
+            final var worst = adversary.worst();
+            assertEquals(max, worst.guesses());
+            for (int g = 0; g < words.length; g++) {
+                assertEquals(results[g].getAsInt() == max, Arrays.binarySearch(worst.answers(), Wordle.DICTIONARY.id(words[g])) >= 0);
+            }
+            final var path = adversary.path(worst.answers()[0]);
+            assertEquals(max, path.size());
+            assertEquals(max, adversary.replayed());
+
+            final var greedy = adversary.greedy();
+            final var last = greedy.get(greedy.size() - 1);
+            assertEquals(0, last.pattern());
+            assertTrue(Arrays.binarySearch(answers, last.id()) >= 0);
+            assertEquals(max + greedy.size(), adversary.replayed());
+        } finally {
+            pool.shutdown();
+        }
+    }
 }